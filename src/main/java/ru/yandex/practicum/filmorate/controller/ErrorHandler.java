@@ -69,4 +69,10 @@ public class ErrorHandler {
     public ErrorResponse handleMpaNotFound(final MpaDoesNotExistException e) {
         return new ErrorResponse(e.getMessage());
     }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleLikeJournalOverflow(final LikeJournalOverflowException e) {
+        return new ErrorResponse(e.getMessage());
+    }
 }
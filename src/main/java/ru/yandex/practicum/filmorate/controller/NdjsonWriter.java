@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+public final class NdjsonWriter {
+    public static final int CHUNK_SIZE = 500;
+
+    private NdjsonWriter() {
+    }
+
+    public static <T> void write(ObjectMapper objectMapper, OutputStream outputStream, List<T> items) {
+        try {
+            for (T item : items) {
+                outputStream.write(objectMapper.writeValueAsBytes(item));
+                outputStream.write('\n');
+            }
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Slf4j
+public final class Pagination {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private Pagination() {
+    }
+
+    public static boolean isRequested(Integer after, Integer limit) {
+        return after != null || limit != null;
+    }
+
+    public static int after(Integer after) {
+        if (after == null) {
+            return 0;
+        }
+        if (after < 0) {
+            log.warn("Pagination: значение after не может быть отрицательным: {}.", after);
+            throw new IllegalArgumentException("Значение after не может быть отрицательным.");
+        }
+        return after;
+    }
+
+    public static int limit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            log.warn("Pagination: значение limit вне допустимого диапазона: {}.", limit);
+            throw new IllegalArgumentException("Значение limit должно быть от 1 до " + MAX_LIMIT + ".");
+        }
+        return limit;
+    }
+
+    public static <T> ResponseEntity<List<T>> toResponse(List<T> page, int limit, Function<T, Integer> idExtractor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == limit) {
+            Integer nextCursor = idExtractor.apply(page.get(page.size() - 1));
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(nextCursor));
+        }
+        return response.body(page);
+    }
+}
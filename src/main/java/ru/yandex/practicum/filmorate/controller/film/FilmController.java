@@ -1,7 +1,13 @@
 package ru.yandex.practicum.filmorate.controller.film;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.controller.NdjsonWriter;
+import ru.yandex.practicum.filmorate.controller.Pagination;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
@@ -14,11 +20,13 @@ public class FilmController {
 
     private final FilmService filmService;
     private final FilmValidator filmValidator;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public FilmController(FilmService filmService, FilmValidator filmValidator) {
+    public FilmController(FilmService filmService, FilmValidator filmValidator, ObjectMapper objectMapper) {
         this.filmService = filmService;
         this.filmValidator = filmValidator;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -28,8 +36,27 @@ public class FilmController {
     }
 
     @GetMapping
-    public List<Film> findAllFilms() {
-        return filmService.findAllFilms();
+    public ResponseEntity<List<Film>> findAllFilms(@RequestParam(required = false) Integer after,
+                                                   @RequestParam(required = false) Integer limit) {
+        if (!Pagination.isRequested(after, limit)) {
+            return ResponseEntity.ok(filmService.findAllFilms());
+        }
+        int pageLimit = Pagination.limit(limit);
+        List<Film> page = filmService.findFilmsPage(Pagination.after(after), pageLimit);
+        return Pagination.toResponse(page, pageLimit, Film::getId);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllFilms() {
+        return outputStream -> filmService.forEachFilmChunk(NdjsonWriter.CHUNK_SIZE,
+                films -> NdjsonWriter.write(objectMapper, outputStream, films));
+    }
+
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam String q,
+                                  @RequestParam(defaultValue = "10") Integer limit) {
+        filmValidator.searchQueryValidation(q);
+        return filmService.searchFilms(q, Pagination.limit(limit));
     }
 
     @GetMapping("/{id}")
@@ -39,6 +39,14 @@ public class FilmValidator {
         return true;
     }
 
+    public boolean searchQueryValidation(String query) {
+        if (query.isBlank()) {
+            log.warn("FilmValidator: строка поиска не может быть пустой.");
+            throw new IllegalArgumentException("Строка поиска не может быть пустой.");
+        }
+        return true;
+    }
+
     public boolean dislikeValidation(@PathVariable Integer filmId, @PathVariable Integer userId) {
         if (!filmService.getFilmById(filmId).getLikes().contains(userId)) {
             log.warn("FilmValidator: пользователь с id: {} хочет удалить лайк, который он не ставил, " +
@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.controller.film;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.controller.Pagination;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.service.LikeService;
 
@@ -20,9 +21,18 @@ public class LikeController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getMostPopularFilms(@RequestParam(defaultValue = "10", required = false) Integer count) {
+    public List<Film> getMostPopularFilms(@RequestParam(defaultValue = "10", required = false) Integer count,
+                                          @RequestParam(required = false) Integer genreId,
+                                          @RequestParam(required = false) Integer mpaId,
+                                          @RequestParam(required = false) Integer year) {
         filmValidator.popularFilmValidation(count);
-        return likeService.getMostPopularFilms(count);
+        return likeService.getMostPopularFilms(count, genreId, mpaId, year);
+    }
+
+    @GetMapping("/{id}/similar")
+    public List<Film> getSimilarFilms(@PathVariable Integer id,
+                                      @RequestParam(defaultValue = "10") Integer count) {
+        return likeService.getSimilarFilms(id, Pagination.limit(count));
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.controller.transfer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.service.ExportService;
+
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @Autowired
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/{type}")
+    public ResponseEntity<StreamingResponseBody> exportData(@PathVariable String type) {
+        exportService.validateType(type);
+        StreamingResponseBody body = outputStream -> exportService.exportData(type, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + type + ".ndjson.gz\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.controller.transfer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.ExportService;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Component
+@Order(2)
+public class ExportRunner implements ApplicationRunner {
+    private final ExportService exportService;
+    private final ConfigurableApplicationContext context;
+
+    @Autowired
+    public ExportRunner(ExportService exportService, ConfigurableApplicationContext context) {
+        this.exportService = exportService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> directories = args.getOptionValues("export.dir");
+        if (directories != null) {
+            for (String directory : directories) {
+                log.info("ExportRunner: выгрузка всех данных в каталог {}.", directory);
+                Map<String, Long> rows = exportService.exportAll(Path.of(directory));
+                log.info("ExportRunner: выгружено строк: {}.", rows);
+            }
+        }
+        if (args.containsOption("export.exit")) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.controller.transfer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.service.ImportService;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/import")
+public class ImportController {
+
+    private final ImportService importService;
+
+    @Autowired
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping("/{type}")
+    public ImportReport importData(@PathVariable String type,
+                                   @RequestParam(defaultValue = ImportService.NDJSON) String format,
+                                   @RequestParam(defaultValue = "true") boolean updateRates,
+                                   InputStream body) {
+        return importService.importData(type, format, body, updateRates);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.controller.transfer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.service.ImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+@Slf4j
+@Component
+@Order(1)
+public class ImportRunner implements ApplicationRunner {
+    private static final List<String> TYPES = List.of(ImportService.USERS, ImportService.FILMS,
+            ImportService.GENRES, ImportService.LIKES, ImportService.FRIENDS);
+    private final ImportService importService;
+    private final ConfigurableApplicationContext context;
+
+    @Autowired
+    public ImportRunner(ImportService importService, ConfigurableApplicationContext context) {
+        this.importService = importService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<String> updateRatesValues = args.getOptionValues("import.update-rates");
+        boolean updateRates = updateRatesValues == null || updateRatesValues.isEmpty()
+                || !"false".equalsIgnoreCase(updateRatesValues.get(0));
+        for (String type : TYPES) {
+            List<String> files = args.getOptionValues("import." + type);
+            if (files == null) {
+                continue;
+            }
+            for (String file : files) {
+                log.info("ImportRunner: импорт {} из файла {}.", type, file);
+                try (InputStream inputStream = Files.newInputStream(Path.of(file))) {
+                    ImportReport report = importService.importData(type, format(file), inputStream, updateRates);
+                    log.info("ImportRunner: {}", report);
+                }
+            }
+        }
+        if (args.containsOption("import.exit")) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private static String format(String file) {
+        String name = file.toLowerCase();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        return name.endsWith(".csv") ? ImportService.CSV : ImportService.NDJSON;
+    }
+}
@@ -1,7 +1,9 @@
 package ru.yandex.practicum.filmorate.controller.user;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.controller.Pagination;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FriendService;
 
@@ -20,9 +22,16 @@ public class FriendController {
     }
 
     @GetMapping
-    public List<User> getAllUserFriends(@PathVariable Integer id) {
+    public ResponseEntity<List<User>> getAllUserFriends(@PathVariable Integer id,
+                                                        @RequestParam(required = false) Integer after,
+                                                        @RequestParam(required = false) Integer limit) {
         userValidator.userValidationById(id);
-        return friendService.findAll(id);
+        if (!Pagination.isRequested(after, limit)) {
+            return ResponseEntity.ok(friendService.findAll(id));
+        }
+        int pageLimit = Pagination.limit(limit);
+        List<User> page = friendService.findFriendsPage(id, Pagination.after(after), pageLimit);
+        return Pagination.toResponse(page, pageLimit, User::getId);
     }
 
     @GetMapping("/common/{otherId}")
@@ -32,6 +41,13 @@ public class FriendController {
         return friendService.getCommonFriends(id, otherId);
     }
 
+    @GetMapping("/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable Integer id,
+                                           @RequestParam(defaultValue = "10") Integer limit) {
+        userValidator.userValidationById(id);
+        return friendService.getFriendSuggestions(id, Pagination.limit(limit));
+    }
+
     @PutMapping("/{friendId}")
     public List<User> addFriend(@PathVariable Integer id, @PathVariable Integer friendId) {
         userValidator.userValidationAddHimselfAsFriend(id, friendId);
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.controller.user;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.controller.Pagination;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/users/{id}/recommendations")
+public class RecommendationController {
+    private final RecommendationService recommendationService;
+    private final UserValidator userValidator;
+
+    @Autowired
+    public RecommendationController(RecommendationService recommendationService, UserValidator userValidator) {
+        this.recommendationService = recommendationService;
+        this.userValidator = userValidator;
+    }
+
+    @GetMapping
+    public List<Film> getRecommendations(@PathVariable Integer id,
+                                         @RequestParam(defaultValue = "10") Integer limit) {
+        userValidator.userValidationById(id);
+        return recommendationService.getRecommendations(id, Pagination.limit(limit));
+    }
+}
@@ -1,7 +1,13 @@
 package ru.yandex.practicum.filmorate.controller.user;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.controller.NdjsonWriter;
+import ru.yandex.practicum.filmorate.controller.Pagination;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
@@ -14,11 +20,13 @@ public class UserController {
 
     private final UserService userService;
     private final UserValidator userValidator;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public UserController(UserService userService, UserValidator userValidator) {
+    public UserController(UserService userService, UserValidator userValidator, ObjectMapper objectMapper) {
         this.userService = userService;
         this.userValidator = userValidator;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -28,8 +36,20 @@ public class UserController {
     }
 
     @GetMapping
-    public List<User> findAllUsers() {
-        return userService.findAllUsers();
+    public ResponseEntity<List<User>> findAllUsers(@RequestParam(required = false) Integer after,
+                                                   @RequestParam(required = false) Integer limit) {
+        if (!Pagination.isRequested(after, limit)) {
+            return ResponseEntity.ok(userService.findAllUsers());
+        }
+        int pageLimit = Pagination.limit(limit);
+        List<User> page = userService.findUsersPage(Pagination.after(after), pageLimit);
+        return Pagination.toResponse(page, pageLimit, User::getId);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllUsers() {
+        return outputStream -> userService.forEachUserChunk(NdjsonWriter.CHUNK_SIZE,
+                users -> NdjsonWriter.write(objectMapper, outputStream, users));
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.exception;
+
+public class LikeJournalOverflowException extends RuntimeException {
+
+    public LikeJournalOverflowException(String message) {
+        super(message);
+    }
+}
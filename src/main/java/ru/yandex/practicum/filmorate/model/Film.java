@@ -1,8 +1,11 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import ru.yandex.practicum.filmorate.util.IntHashSet;
+import ru.yandex.practicum.filmorate.util.IntHashSetSerializer;
 
 import javax.validation.constraints.*;
 import java.time.LocalDate;
@@ -30,7 +33,8 @@ public class Film {
     @NotNull
     private Mpa mpa;
     private final Set<Genre> genres = new TreeSet<>(Comparator.comparingInt(Genre::getId));
-    private final Set<Integer> likes = new HashSet<>();
+    @JsonSerialize(using = IntHashSetSerializer.class)
+    private final IntHashSet likes = new IntHashSet();
 
     public Map<String,Object> filmToMap() {
         Map<String, Object> values = new HashMap<>();
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@AllArgsConstructor
+@Data
+@Builder
+public class ImportReport {
+    private String type;
+    private String format;
+    private long rows;
+    private long millis;
+    private long rowsPerSecond;
+}
@@ -1,6 +1,9 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.*;
+import ru.yandex.practicum.filmorate.util.IntHashSet;
+import ru.yandex.practicum.filmorate.util.IntHashSetSerializer;
 
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
@@ -8,9 +11,7 @@ import javax.validation.constraints.Past;
 import javax.validation.constraints.Pattern;
 import java.time.LocalDate;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 @AllArgsConstructor
 @Data
@@ -27,7 +28,8 @@ public class User {
     private String name;
     @Past
     private LocalDate birthday;
-    private final Set<Integer> friends = new HashSet<>();
+    @JsonSerialize(using = IntHashSetSerializer.class)
+    private final IntHashSet friends = new IntHashSet();
 
     public Map<String,Object> userToMap() {
         Map<String, Object> values = new HashMap<>();
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.storage.film.LikeJournal;
+import ru.yandex.practicum.filmorate.storage.transferImpl.ExportStorage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+@Slf4j
+@Service
+public class ExportService {
+    public static final List<String> TYPES = List.of(ImportService.USERS, ImportService.FILMS,
+            ImportService.GENRES, ImportService.LIKES, ImportService.FRIENDS);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final ExportStorage exportStorage;
+    private final ObjectMapper objectMapper;
+    private final LikeJournal likeJournal;
+    private final TransactionTemplate snapshotTemplate;
+
+    @Autowired
+    public ExportService(@Qualifier("ExportDbStorage") ExportStorage exportStorage, ObjectMapper objectMapper,
+                         LikeJournal likeJournal, PlatformTransactionManager transactionManager) {
+        this.exportStorage = exportStorage;
+        this.objectMapper = objectMapper;
+        this.likeJournal = likeJournal;
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setReadOnly(true);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public void validateType(String type) {
+        if (!TYPES.contains(type)) {
+            throw new IllegalArgumentException("Неизвестный тип выгрузки: " + type + ".");
+        }
+    }
+
+    public long exportData(String type, OutputStream outputStream) {
+        validateType(type);
+        likeJournal.flush();
+        Long rows = snapshotTemplate.execute(status -> write(type, outputStream));
+        return rows == null ? 0 : rows;
+    }
+
+    public Map<String, Long> exportAll(Path directory) {
+        log.debug("ExportService: выгрузка всех данных в каталог {}.", directory);
+        likeJournal.flush();
+        Map<String, Long> rows = new LinkedHashMap<>();
+        snapshotTemplate.executeWithoutResult(status -> {
+            try {
+                Files.createDirectories(directory);
+                for (String type : TYPES) {
+                    Path file = directory.resolve(type + ".ndjson.gz");
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                         OutputStream outputStream = Channels.newOutputStream(channel)) {
+                        rows.put(type, write(type, outputStream));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return rows;
+    }
+
+    private long write(String type, OutputStream outputStream) {
+        log.debug("ExportService: выгрузка данных типа {}.", type);
+        long start = System.nanoTime();
+        long rows;
+        try {
+            GZIPOutputStream gzip = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(gzip)) {
+                generator.setRootValueSeparator(null);
+                rows = export(type, generator);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("ExportService: выгрузка {} завершена: {} строк за {} мс ({} строк/с).",
+                type, rows, millis, rows * 1000 / millis);
+        return rows;
+    }
+
+    private long export(String type, JsonGenerator generator) {
+        switch (type) {
+            case ImportService.USERS:
+                return exportStorage.exportUsers(generator);
+            case ImportService.FILMS:
+                return exportStorage.exportFilms(generator);
+            case ImportService.GENRES:
+                return exportStorage.exportFilmGenres(generator);
+            case ImportService.LIKES:
+                return exportStorage.exportLikes(generator);
+            default:
+                return exportStorage.exportFriendships(generator);
+        }
+    }
+}
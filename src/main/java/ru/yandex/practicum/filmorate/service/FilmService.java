@@ -3,11 +3,13 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.FilmValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.filmImpl.FilmStorage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -19,30 +21,56 @@ public class FilmService {
         this.filmStorage = filmStorage;
     }
 
+    @Transactional(readOnly = true)
     public List<Film> findAllFilms() {
         log.debug("FilmService: получен список всех фильмов.");
         List<Film> films = filmStorage.findAll();
-        films.forEach(filmStorage::setGenre);
+        filmStorage.setGenres(films);
+        filmStorage.setLikes(films);
         return films;
     }
 
+    @Transactional(readOnly = true)
+    public List<Film> findFilmsPage(Integer after, Integer limit) {
+        log.debug("FilmService: получена страница из {} фильмов после id: {}.", limit, after);
+        List<Film> films = filmStorage.findPage(after, limit);
+        filmStorage.setGenres(films);
+        filmStorage.setLikes(films);
+        return films;
+    }
+
+    public void forEachFilmChunk(Integer chunkSize, Consumer<List<Film>> action) {
+        log.debug("FilmService: потоковая выгрузка всех фильмов порциями по {}.", chunkSize);
+        filmStorage.forEachChunk(chunkSize, action);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Film> searchFilms(String query, Integer limit) {
+        log.debug("FilmService: поиск не более {} фильмов по запросу: {}.", limit, query);
+        return filmStorage.search(query, limit);
+    }
+
+    @Transactional
     public Film createFilm(Film film) {
         log.debug("FilmService: фильм c id: {} добавлен.", film.getId());
         return filmStorage.create(film);
     }
 
+    @Transactional
     public Film updateFilm(Film film) {
         log.debug("FilmService: фильм c id: {} обновлен.", film.getId());
         validateFilmExists(film.getId());
         return filmStorage.update(film);
     }
 
+    @Transactional(readOnly = true)
     public Film getFilmById(Integer filmId) {
         log.debug("FilmService: фильм c id: {} получен.", filmId);
         validateFilmExists(filmId);
         return filmStorage.get(filmId);
     }
 
+    @Transactional
     public Film delete(Integer filmId) {
         log.debug("FilmService: запрос на удаление фильма с id: {}.", filmId);
         validateFilmExists(filmId);
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.UserDoesNotExistException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.userImpl.FriendStorage;
@@ -30,12 +31,22 @@ public class FriendService {
         return friendStorage.addFriend(userId, friendId);
     }
 
+    @Transactional(readOnly = true)
     public List<User> findAll(Integer userId) {
         log.debug("FriendsService: запрос на получение всех друзей пользователя c id: {}.", userId);
         validateFriendExists(userId);
         return friendStorage.getAllFriends(userId);
     }
 
+    @Transactional(readOnly = true)
+    public List<User> findFriendsPage(Integer userId, Integer after, Integer limit) {
+        log.debug("FriendsService: запрос на получение {} друзей пользователя c id: {} после id: {}.",
+                limit, userId, after);
+        validateFriendExists(userId);
+        return friendStorage.getFriendsPage(userId, after, limit);
+    }
+
+    @Transactional(readOnly = true)
     public List<User> getCommonFriends(Integer userId, Integer otherId) {
         log.debug("FriendsService: запрос на получение общих друзей пользователей c id: {} и id: {}.", userId, otherId);
         validateFriendExists(userId);
@@ -43,6 +54,14 @@ public class FriendService {
         return friendStorage.getCommonFriends(userId, otherId);
     }
 
+    @Transactional(readOnly = true)
+    public List<User> getFriendSuggestions(Integer userId, Integer limit) {
+        log.debug("FriendsService: запрос на получение {} рекомендуемых друзей для пользователя c id: {}.",
+                limit, userId);
+        validateFriendExists(userId);
+        return friendStorage.getFriendSuggestions(userId, limit);
+    }
+
     public List<User> deleteFriend(Integer userId, Integer friendId) {
         log.debug("FriendsService: запрос от пользователя c id: {} на удаление из друзей пользователя с id: {}.",
                 userId, friendId);
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.GenreDoesNotExistException;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.filmImpl.GenreStorage;
@@ -19,11 +20,13 @@ public class GenreService {
         this.genreStorage = genreStorage;
     }
 
+    @Transactional(readOnly = true)
     public List<Genre> findAll() {
         log.debug("GenreService: запрос на получение всех жанров.");
         return genreStorage.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Genre get(Integer genreId) {
         log.debug("GenreService: запрос на получение жанра с id: {}.", genreId);
         validateGenreExists(genreId);
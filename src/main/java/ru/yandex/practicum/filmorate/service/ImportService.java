@@ -0,0 +1,320 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmGenre;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.LikeJournal;
+import ru.yandex.practicum.filmorate.storage.transfer.DataImportedEvent;
+import ru.yandex.practicum.filmorate.storage.transferImpl.ImportStorage;
+import ru.yandex.practicum.filmorate.util.CsvReader;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+
+@Slf4j
+@Service
+public class ImportService {
+    public static final String USERS = "users";
+    public static final String FILMS = "films";
+    public static final String GENRES = "genres";
+    public static final String LIKES = "likes";
+    public static final String FRIENDS = "friends";
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+    private static final int CHUNK_SIZE = 10_000;
+    private static final LocalDate MIN_DATE = LocalDate.of(1895, 12, 28);
+    private final ImportStorage importStorage;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LikeJournal likeJournal;
+
+    @Autowired
+    public ImportService(@Qualifier("ImportDbStorage") ImportStorage importStorage, ObjectMapper objectMapper,
+                         Validator validator, ApplicationEventPublisher eventPublisher, LikeJournal likeJournal) {
+        this.importStorage = importStorage;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.likeJournal = likeJournal;
+    }
+
+    public ImportReport importData(String type, String format, InputStream inputStream, boolean updateRates) {
+        log.debug("ImportService: импорт данных типа {} в формате {}.", type, format);
+        if (!NDJSON.equals(format) && !CSV.equals(format)) {
+            throw new IllegalArgumentException("Неизвестный формат импорта: " + format + ".");
+        }
+        likeJournal.flush();
+        long start = System.nanoTime();
+        long rows;
+        long millis;
+        try (InputStream input = decompress(inputStream)) {
+            switch (type) {
+                case USERS:
+                    rows = load(type, rows(input, format, User.class, ImportService::userFromCsv),
+                            this::importUsers);
+                    break;
+                case FILMS:
+                    rows = load(type, rows(input, format, Film.class, ImportService::filmFromCsv),
+                            this::importFilms);
+                    break;
+                case GENRES:
+                    rows = load(type, rows(input, format, FilmGenre.class, ImportService::filmGenreFromCsv),
+                            this::importFilmGenres);
+                    break;
+                case LIKES:
+                    rows = load(type, rows(input, format, Like.class, ImportService::likeFromCsv),
+                            likes -> importLikes(likes, updateRates));
+                    break;
+                case FRIENDS:
+                    rows = load(type, rows(input, format, Friendship.class, ImportService::friendshipFromCsv),
+                            this::importFriendships);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Неизвестный тип импорта: " + type + ".");
+            }
+            millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalArgumentException("Ошибка чтения данных импорта: " + e.getMessage(), e);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Ошибка записи данных импорта: " +
+                    e.getMostSpecificCause().getMessage(), e);
+        } catch (RuntimeException e) {
+            if (e instanceof IllegalArgumentException || e instanceof ValidationException
+                    || e instanceof DataAccessException) {
+                throw e;
+            }
+            throw new IllegalArgumentException("Некорректные данные импорта: " + e.getMessage(), e);
+        } finally {
+            likeJournal.flush();
+            eventPublisher.publishEvent(new DataImportedEvent(this, type));
+        }
+        ImportReport report = ImportReport.builder()
+                .type(type)
+                .format(format)
+                .rows(rows)
+                .millis(millis)
+                .rowsPerSecond(rows * 1000 / millis)
+                .build();
+        log.info("ImportService: импорт {} завершён: {} строк за {} мс ({} строк/с).",
+                type, rows, millis, report.getRowsPerSecond());
+        return report;
+    }
+
+    private <T> long load(String type, Iterator<T> rows, Consumer<List<T>> sink) {
+        long total = 0;
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == CHUNK_SIZE) {
+                sink.accept(chunk);
+                total += chunk.size();
+                chunk = new ArrayList<>(CHUNK_SIZE);
+                log.debug("ImportService: импортировано {} строк типа {}.", total, type);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            sink.accept(chunk);
+            total += chunk.size();
+        }
+        return total;
+    }
+
+    private void importUsers(List<User> users) {
+        for (User user : users) {
+            validate(user);
+            if (user.getBirthday() == null) {
+                throw new ValidationException("Не указана дата рождения пользователя: " + user.getLogin() + ".");
+            }
+            if (user.getName() == null || user.getName().isBlank()) {
+                user.setName(user.getLogin());
+            }
+        }
+        importStorage.importUsers(users);
+    }
+
+    private void importFilms(List<Film> films) {
+        for (Film film : films) {
+            validate(film);
+            if (film.getReleaseDate().isBefore(MIN_DATE)) {
+                throw new ValidationException("Дата релиза не может быть раньше 28.12.1895 г.");
+            }
+        }
+        importStorage.importFilms(films);
+    }
+
+    private void importFilmGenres(List<FilmGenre> filmGenres) {
+        for (FilmGenre filmGenre : filmGenres) {
+            if (filmGenre.getFilmId() == null || filmGenre.getGenreId() == null) {
+                throw new ValidationException("В жанре фильма должны быть указаны filmId и genreId.");
+            }
+        }
+        importStorage.importFilmGenres(filmGenres);
+    }
+
+    private void importLikes(List<Like> likes, boolean updateRates) {
+        for (Like like : likes) {
+            if (like.getFilmId() == null || like.getUserId() == null) {
+                throw new ValidationException("В лайке должны быть указаны filmId и userId.");
+            }
+        }
+        importStorage.importLikes(likes, updateRates);
+    }
+
+    private void importFriendships(List<Friendship> friendships) {
+        for (Friendship friendship : friendships) {
+            if (friendship.getUserId() == null || friendship.getFriendId() == null) {
+                throw new ValidationException("В связи дружбы должны быть указаны userId и friendId.");
+            }
+        }
+        importStorage.importFriendships(friendships);
+    }
+
+    private <T> void validate(T row) {
+        Set<ConstraintViolation<T>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<T> violation = violations.iterator().next();
+            throw new ValidationException("Некорректная строка импорта: " + violation.getPropertyPath() + " "
+                    + violation.getMessage() + ".");
+        }
+    }
+
+    private <T> Iterator<T> rows(InputStream input, String format, Class<T> rowType,
+                                 Function<List<String>, T> csvMapper) throws IOException {
+        if (NDJSON.equals(format)) {
+            JsonParser parser = objectMapper.getFactory().createParser(input);
+            MappingIterator<T> iterator = objectMapper.readValues(parser, rowType);
+            return iterator;
+        }
+        CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        reader.next();
+        return new Iterator<T>() {
+            private List<String> next = read();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                List<String> current = next;
+                T row;
+                try {
+                    row = csvMapper.apply(current);
+                } catch (RuntimeException e) {
+                    throw new ValidationException("Некорректная строка CSV " + reader.line() + ": " + e.getMessage());
+                }
+                next = read();
+                return row;
+            }
+
+            private List<String> read() {
+                try {
+                    return reader.next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private static InputStream decompress(InputStream inputStream) throws IOException {
+        BufferedInputStream input = new BufferedInputStream(inputStream, 64 * 1024);
+        input.mark(2);
+        int first = input.read();
+        int second = input.read();
+        input.reset();
+        if (first == (GZIPInputStream.GZIP_MAGIC & 0xFF) && second == (GZIPInputStream.GZIP_MAGIC >>> 8)) {
+            return new GZIPInputStream(input, 64 * 1024);
+        }
+        return input;
+    }
+
+    private static User userFromCsv(List<String> fields) {
+        return User.builder()
+                .id(optionalInt(fields, 0))
+                .email(field(fields, 1))
+                .login(field(fields, 2))
+                .name(field(fields, 3))
+                .birthday(LocalDate.parse(field(fields, 4)))
+                .build();
+    }
+
+    private static Film filmFromCsv(List<String> fields) {
+        Film film = Film.builder()
+                .id(optionalInt(fields, 0))
+                .name(field(fields, 1))
+                .description(field(fields, 2))
+                .releaseDate(LocalDate.parse(field(fields, 3)))
+                .duration(Long.parseLong(field(fields, 4)))
+                .rate(optionalInt(fields, 5))
+                .mpa(new Mpa(Integer.parseInt(field(fields, 6)), null))
+                .build();
+        String genreIds = fields.size() > 7 ? fields.get(7) : "";
+        if (!genreIds.isBlank()) {
+            for (String genreId : genreIds.split(";")) {
+                film.getGenres().add(new Genre(Integer.parseInt(genreId.trim()), null));
+            }
+        }
+        return film;
+    }
+
+    private static FilmGenre filmGenreFromCsv(List<String> fields) {
+        return new FilmGenre(Integer.parseInt(field(fields, 0)), Integer.parseInt(field(fields, 1)));
+    }
+
+    private static Like likeFromCsv(List<String> fields) {
+        return new Like(Integer.parseInt(field(fields, 0)), Integer.parseInt(field(fields, 1)));
+    }
+
+    private static Friendship friendshipFromCsv(List<String> fields) {
+        return new Friendship(Integer.parseInt(field(fields, 0)), Integer.parseInt(field(fields, 1)));
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index >= fields.size()) {
+            throw new IllegalArgumentException("ожидалось не менее " + (index + 1) + " полей");
+        }
+        return fields.get(index).trim();
+    }
+
+    private static Integer optionalInt(List<String> fields, int index) {
+        String value = index < fields.size() ? fields.get(index).trim() : "";
+        return value.isEmpty() ? null : Integer.valueOf(value);
+    }
+}
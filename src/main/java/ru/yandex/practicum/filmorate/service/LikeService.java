@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.filmImpl.LikeStorage;
 
@@ -36,10 +37,22 @@ public class LikeService {
         return likeStorage.dislikeFilm(filmId, userId);
     }
 
+    @Transactional(readOnly = true)
     public List<Film> getMostPopularFilms(Integer count) {
-        log.debug("LikesService: запрос на получение списка самых популярных фильмов размером {}.", count);
-        List<Film> mostPopularFilms = likeStorage.getMostPopularFilms(count);
-        mostPopularFilms.forEach(likeStorage::setLike);
-        return mostPopularFilms;
+        return getMostPopularFilms(count, null, null, null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Film> getMostPopularFilms(Integer count, Integer genreId, Integer mpaId, Integer year) {
+        log.debug("LikesService: запрос на получение списка самых популярных фильмов размером {} " +
+                "с фильтрами genreId: {}, mpaId: {}, year: {}.", count, genreId, mpaId, year);
+        return likeStorage.getMostPopularFilms(count, genreId, mpaId, year);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Film> getSimilarFilms(Integer filmId, Integer count) {
+        log.debug("LikesService: запрос на получение {} фильмов, похожих на фильм с id: {}.", count, filmId);
+        filmService.validateFilmExists(filmId);
+        return likeStorage.getSimilarFilms(filmId, count);
     }
 }
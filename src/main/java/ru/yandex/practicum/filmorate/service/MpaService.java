@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.MpaDoesNotExistException;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.filmImpl.MpaStorage;
@@ -19,11 +20,13 @@ public class MpaService {
         this.mpaStorage = mpaStorage;
     }
 
+    @Transactional(readOnly = true)
     public List<Mpa> findAll() {
         log.debug("MpaService: запрос на получение всех рейтингов.");
         return mpaStorage.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Mpa get(Integer mpaId) {
         log.debug("MpaService: запрос на получение рейтинга с id: {}.", mpaId);
         validateMpaExists(mpaId);
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.filmImpl.LikeStorage;
+
+import java.util.List;
+
+@Slf4j
+@Service
+public class RecommendationService {
+    private final LikeStorage likeStorage;
+    private final UserService userService;
+
+    @Autowired
+    public RecommendationService(LikeStorage likeStorage, UserService userService) {
+        this.likeStorage = likeStorage;
+        this.userService = userService;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Film> getRecommendations(Integer userId, Integer limit) {
+        log.debug("RecommendationService: запрос на получение {} рекомендованных фильмов для пользователя с id: {}.",
+                limit, userId);
+        userService.validateUserExists(userId);
+        return likeStorage.getRecommendedFilms(userId, limit);
+    }
+}
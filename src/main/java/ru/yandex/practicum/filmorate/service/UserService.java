@@ -3,11 +3,13 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.UserDoesNotExistException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.userImpl.UserStorage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -19,28 +21,44 @@ public class UserService {
         this.userStorage = userStorage;
     }
 
+    @Transactional(readOnly = true)
     public List<User> findAllUsers() {
         log.debug("UserService: список пользователей получен.");
         return userStorage.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public List<User> findUsersPage(Integer after, Integer limit) {
+        log.debug("UserService: получена страница из {} пользователей после id: {}.", limit, after);
+        return userStorage.findPage(after, limit);
+    }
+
+    public void forEachUserChunk(Integer chunkSize, Consumer<List<User>> action) {
+        log.debug("UserService: потоковая выгрузка всех пользователей порциями по {}.", chunkSize);
+        userStorage.forEachChunk(chunkSize, action);
+    }
+
+    @Transactional
     public User createUser(User user) {
         log.debug("UserService: пользователь c id: {} добавлен.", user.getId());
         return userStorage.create(user);
     }
 
+    @Transactional
     public User updateUser(User user) {
         log.debug("UserService: пользователь c id: {} обновлен.", user.getId());
         validateUserExists(user.getId());
         return userStorage.update(user);
     }
 
+    @Transactional(readOnly = true)
     public User getUserById(Integer userId) {
         log.debug("UserService: пользователь c id: {} получен.", userId);
         validateUserExists(userId);
         return userStorage.get(userId);
     }
 
+    @Transactional
     public User delete(Integer userId) {
         log.debug("UserService: пользователь c id: {} удален.", userId);
         validateUserExists(userId);
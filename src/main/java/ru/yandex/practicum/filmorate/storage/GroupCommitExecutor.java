@@ -0,0 +1,187 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class GroupCommitExecutor {
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate savepointTemplate;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long windowMicros;
+    private final BlockingQueue<Request<?>> requests = new LinkedBlockingQueue<>();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private volatile boolean running;
+    private Thread committer;
+
+    @Autowired
+    public GroupCommitExecutor(PlatformTransactionManager transactionManager,
+                               @Value("${filmorate.group-commit.enabled:false}") boolean enabled,
+                               @Value("${filmorate.group-commit.max-batch-size:256}") int maxBatchSize,
+                               @Value("${filmorate.group-commit.window-micros:500}") long windowMicros) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.savepointTemplate = new TransactionTemplate(transactionManager);
+        this.savepointTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.windowMicros = windowMicros;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        log.debug("GroupCommitExecutor: групповая фиксация включена, пакет до {} запросов, окно {} мкс.",
+                maxBatchSize, windowMicros);
+        running = true;
+        committer = new Thread(this::run, "group-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (committer == null) {
+            return;
+        }
+        running = false;
+        committer.interrupt();
+        try {
+            committer.join(TimeUnit.MINUTES.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Request<?>> rest = new ArrayList<>();
+        requests.drainTo(rest);
+        if (!rest.isEmpty()) {
+            commit(rest);
+        }
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        if (!running) {
+            return transactionTemplate.execute(status -> work.get());
+        }
+        Request<T> request = new Request<>(work);
+        requests.add(request);
+        if (!running && requests.remove(request)) {
+            return transactionTemplate.execute(status -> work.get());
+        }
+        try {
+            return request.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public long commits() {
+        return commits.get();
+    }
+
+    public long completed() {
+        return completed.get();
+    }
+
+    private void run() {
+        List<Request<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !requests.isEmpty()) {
+            try {
+                batch.add(requests.take());
+                requests.drainTo(batch, maxBatchSize - batch.size());
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(windowMicros);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Request<?> next = remaining > 0 ? requests.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    requests.drainTo(batch, maxBatchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<Request<?>> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Request<?> request : batch) {
+                    request.runInSavepoint(savepointTemplate);
+                }
+            });
+            commits.incrementAndGet();
+            completed.addAndGet(batch.size());
+            for (Request<?> request : batch) {
+                request.complete();
+            }
+        } catch (RuntimeException e) {
+            log.warn("GroupCommitExecutor: не удалось зафиксировать пакет из {} запросов: {}.",
+                    batch.size(), e.getMessage());
+            completed.addAndGet(batch.size());
+            for (Request<?> request : batch) {
+                request.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Request<T> {
+        private final Supplier<T> work;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private T value;
+        private RuntimeException error;
+
+        private Request(Supplier<T> work) {
+            this.work = work;
+        }
+
+        private void runInSavepoint(TransactionTemplate savepointTemplate) {
+            try {
+                value = savepointTemplate.execute(status -> work.get());
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+
+        private void complete() {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+}
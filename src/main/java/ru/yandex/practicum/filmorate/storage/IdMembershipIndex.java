@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class IdMembershipIndex {
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+    private static final int WORDS_PER_SEGMENT = (1 << SEGMENT_SHIFT) / Long.SIZE;
+    private static final int SEGMENT_COUNT = 1 << (Integer.SIZE - 1 - SEGMENT_SHIFT);
+    private final AtomicReferenceArray<AtomicLongArray> segments = new AtomicReferenceArray<>(SEGMENT_COUNT);
+    private final AtomicLong removals = new AtomicLong();
+
+    public boolean contains(Integer id) {
+        if (id == null || id < 0) {
+            return false;
+        }
+        AtomicLongArray segment = segments.get(id >>> SEGMENT_SHIFT);
+        if (segment == null) {
+            return false;
+        }
+        int bit = id & SEGMENT_MASK;
+        return (segment.get(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    public void add(Integer id) {
+        if (id == null || id < 0) {
+            return;
+        }
+        AtomicLongArray segment = segment(id >>> SEGMENT_SHIFT);
+        int bit = id & SEGMENT_MASK;
+        long mask = 1L << bit;
+        int word = bit >>> 6;
+        long current = segment.get(word);
+        while ((current & mask) == 0 && !segment.compareAndSet(word, current, current | mask)) {
+            current = segment.get(word);
+        }
+    }
+
+    public long removals() {
+        return removals.get();
+    }
+
+    public void addIfNotRemovedSince(Integer id, long removalsBefore) {
+        add(id);
+        if (removals.get() != removalsBefore) {
+            clearBit(id);
+        }
+    }
+
+    public void remove(Integer id) {
+        removals.incrementAndGet();
+        clearBit(id);
+    }
+
+    private void clearBit(Integer id) {
+        if (id == null || id < 0) {
+            return;
+        }
+        AtomicLongArray segment = segments.get(id >>> SEGMENT_SHIFT);
+        if (segment == null) {
+            return;
+        }
+        int bit = id & SEGMENT_MASK;
+        long mask = 1L << bit;
+        int word = bit >>> 6;
+        long current = segment.get(word);
+        while ((current & mask) != 0 && !segment.compareAndSet(word, current, current & ~mask)) {
+            current = segment.get(word);
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments.set(i, null);
+        }
+    }
+
+    private AtomicLongArray segment(int index) {
+        AtomicLongArray segment = segments.get(index);
+        if (segment == null) {
+            segments.compareAndSet(index, null, new AtomicLongArray(WORDS_PER_SEGMENT));
+            segment = segments.get(index);
+        }
+        return segment;
+    }
+}
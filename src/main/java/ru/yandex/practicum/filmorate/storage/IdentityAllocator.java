@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class IdentityAllocator {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate outsideTransaction;
+    private final ReadWriteLock identityLock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public IdentityAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outsideTransaction = new TransactionTemplate(transactionManager);
+        this.outsideTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+    }
+
+    public <T> T generate(Supplier<T> insert) {
+        Lock lock = identityLock.readLock();
+        lock.lock();
+        try {
+            return insert.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void advancePast(String table, String column, int maxExplicitId) {
+        Lock lock = identityLock.writeLock();
+        lock.lock();
+        try {
+            outsideTransaction.executeWithoutResult(status -> {
+                String sql = "SELECT IDENTITY_BASE " +
+                        "FROM INFORMATION_SCHEMA.COLUMNS " +
+                        "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+                Long nextId = jdbcTemplate.queryForObject(sql, Long.class,
+                        table.toUpperCase(), column.toUpperCase());
+                if (nextId != null && nextId > maxExplicitId) {
+                    return;
+                }
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + column +
+                        " RESTART WITH " + (maxExplicitId + 1));
+                log.debug("IdentityAllocator: счётчик идентификаторов таблицы {} перенесён за {}.",
+                        table, maxExplicitId);
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+}
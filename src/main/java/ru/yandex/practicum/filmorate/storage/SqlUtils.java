@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public final class SqlUtils {
+    public static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+    public static final int ARRAY_CHUNK_SIZE = 65_536;
+
+    private SqlUtils() {
+    }
+
+    public static List<List<Integer>> partition(Collection<Integer> ids) {
+        return partition(ids, IN_CLAUSE_CHUNK_SIZE);
+    }
+
+    public static List<List<Integer>> partition(Collection<Integer> ids, int chunkSize) {
+        List<Integer> source = new ArrayList<>(ids);
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < source.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, source.size());
+            chunks.add(source.subList(from, to));
+        }
+        return chunks;
+    }
+
+    public static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
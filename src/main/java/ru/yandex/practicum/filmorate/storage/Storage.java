@@ -1,11 +1,16 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface Storage<T> {
 
     List<T> findAll();
 
+    List<T> findPage(Integer after, Integer limit);
+
+    void forEachChunk(Integer chunkSize, Consumer<List<T>> action);
+
     T get(Integer id);
 
     T create(T t);
@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.transfer.DataImportedEvent;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component
+public class FilmCache {
+    private static final int GENERATION_STRIPES = 256;
+    private static final int SEGMENTS = 16;
+    private static final long MIN_SEGMENT_WEIGHT = 1024;
+    private final long maxWeight;
+    private final Segment[] segments;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final long statsLogIntervalMillis;
+    private ScheduledExecutorService statsExecutor;
+
+    public FilmCache(long maxWeight) {
+        this(maxWeight, 0);
+    }
+
+    @Autowired
+    public FilmCache(@Value("${filmorate.cache.films.max-weight:1000000}") long maxWeight,
+                     @Value("${filmorate.cache.films.stats-log-interval-ms:60000}") long statsLogIntervalMillis) {
+        this.maxWeight = maxWeight;
+        this.statsLogIntervalMillis = statsLogIntervalMillis;
+        int segmentCount = maxWeight >= SEGMENTS * MIN_SEGMENT_WEIGHT ? SEGMENTS : 1;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(maxWeight / segmentCount);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (statsLogIntervalMillis <= 0) {
+            return;
+        }
+        statsExecutor = Executors.newSingleThreadScheduledExecutor();
+        statsExecutor.scheduleWithFixedDelay(this::logStats, statsLogIntervalMillis, statsLogIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (statsExecutor != null) {
+            statsExecutor.shutdownNow();
+        }
+    }
+
+    public Film getIfPresent(Integer filmId) {
+        Segment segment = segment(filmId);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.entries.get(filmId);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.film;
+    }
+
+    public long generation(Integer filmId) {
+        return generations.get(stripe(filmId));
+    }
+
+    public void put(Film film, long loadedAtGeneration) {
+        Integer filmId = film.getId();
+        Segment segment = segment(filmId);
+        long weight = weigh(film);
+        if (weight > segment.maxWeight) {
+            log.debug("FilmCache: фильм с id: {} весом {} превышает размер кэша и не будет закэширован.",
+                    filmId, weight);
+            return;
+        }
+        synchronized (segment) {
+            if (generation(filmId) != loadedAtGeneration) {
+                log.debug("FilmCache: фильм с id: {} изменился во время загрузки и не будет закэширован.", filmId);
+                return;
+            }
+            Entry previous = segment.entries.put(filmId, new Entry(film, weight));
+            if (previous != null) {
+                segment.weight -= previous.weight;
+            }
+            segment.weight += weight;
+            evictIfNeeded(segment);
+        }
+    }
+
+    public void invalidate(Integer filmId) {
+        Segment segment = segment(filmId);
+        synchronized (segment) {
+            generations.incrementAndGet(stripe(filmId));
+            Entry removed = segment.entries.remove(filmId);
+            if (removed != null) {
+                segment.weight -= removed.weight;
+                log.debug("FilmCache: фильм с id: {} удален из кэша.", filmId);
+            }
+        }
+    }
+
+    @EventListener(value = DataImportedEvent.class, condition = "#root.event.type matches 'films|genres|likes'")
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    public Stats stats() {
+        int size = 0;
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+                weight += segment.weight;
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size, weight, maxWeight);
+    }
+
+    private void logStats() {
+        Stats stats = stats();
+        log.info("FilmCache: попаданий {}, промахов {}, вытеснений {}, фильмов в кэше {}, вес {} из {}.",
+                stats.getHits(), stats.getMisses(), stats.getEvictions(), stats.getSize(), stats.getWeight(),
+                stats.getMaxWeight());
+    }
+
+    private void evictIfNeeded(Segment segment) {
+        Iterator<Map.Entry<Integer, Entry>> eldest = segment.entries.entrySet().iterator();
+        while (segment.weight > segment.maxWeight && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            segment.weight -= evicted.weight;
+            evictions.increment();
+        }
+    }
+
+    private Segment segment(Integer filmId) {
+        int hash = filmId * 0x9E3779B9;
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private static long weigh(Film film) {
+        return 1L + film.getLikes().size() + film.getGenres().size();
+    }
+
+    private static int stripe(Integer filmId) {
+        return Math.floorMod(filmId, GENERATION_STRIPES);
+    }
+
+    private static final class Segment {
+        private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maxWeight;
+        private long weight;
+
+        private Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+    }
+
+    private static final class Entry {
+        private final Film film;
+        private final long weight;
+
+        private Entry(Film film, long weight) {
+            this.film = film;
+            this.weight = weight;
+        }
+    }
+
+    @lombok.Value
+    public static class Stats {
+        long hits;
+        long misses;
+        long evictions;
+        int size;
+        long weight;
+        long maxWeight;
+    }
+}
@@ -2,51 +2,187 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.IdMembershipIndex;
+import ru.yandex.practicum.filmorate.storage.IdentityAllocator;
+import ru.yandex.practicum.filmorate.storage.SqlUtils;
+import ru.yandex.practicum.filmorate.storage.TransactionHooks;
 import ru.yandex.practicum.filmorate.storage.filmImpl.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.transfer.DataImportedEvent;
 
+import javax.annotation.PostConstruct;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 @Slf4j
 @Repository("FilmDbStorage")
 public class FilmDbStorage implements FilmStorage {
+    private static final String SELECT_FILMS = "SELECT film_id, film_name, film_description, film_release_date, " +
+            "film_duration, film_rate, mpa_id " +
+            "FROM FILMS ";
     private final JdbcTemplate jdbcTemplate;
+    private final IdMembershipIndex filmIds = new IdMembershipIndex();
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final FilmCache filmCache;
+    private final PopularityIndex popularityIndex;
+    private final LikeGraph likeGraph;
+    private final SimilarFilmsIndex similarFilmsIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final LikeJournal likeJournal;
+    private final IdentityAllocator identityAllocator;
+    private final TransactionTemplate chunkTemplate;
 
     @Autowired
-    public FilmDbStorage(JdbcTemplate jdbcTemplate) {
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, ReferenceDataRegistry referenceDataRegistry,
+                         FilmCache filmCache, PopularityIndex popularityIndex, LikeGraph likeGraph,
+                         SimilarFilmsIndex similarFilmsIndex, FilmSearchIndex filmSearchIndex,
+                         LikeJournal likeJournal, IdentityAllocator identityAllocator,
+                         PlatformTransactionManager transactionManager) {
         this.jdbcTemplate = jdbcTemplate;
+        this.referenceDataRegistry = referenceDataRegistry;
+        this.filmCache = filmCache;
+        this.popularityIndex = popularityIndex;
+        this.likeGraph = likeGraph;
+        this.similarFilmsIndex = similarFilmsIndex;
+        this.filmSearchIndex = filmSearchIndex;
+        this.likeJournal = likeJournal;
+        this.identityAllocator = identityAllocator;
+        this.chunkTemplate = new TransactionTemplate(transactionManager);
+        this.chunkTemplate.setReadOnly(true);
+        this.chunkTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @PostConstruct
+    @EventListener(value = DataImportedEvent.class, condition = "#root.event.type == 'films'")
+    public void loadIds() {
+        log.debug("FilmDbStorage: загрузка идентификаторов фильмов из БД.");
+        String sql = "SELECT film_id " +
+                "FROM FILMS";
+        filmIds.clear();
+        long removalsBefore = filmIds.removals();
+        jdbcTemplate.query(sql, rs -> {
+            filmIds.addIfNotRemovedSince(rs.getInt("film_id"), removalsBefore);
+        });
     }
 
     @Override
     public List<Film> findAll() {
         log.debug("FilmDbStorage: запрос к БД на получение всех фильмов.");
-        String sql = "SELECT * " +
-                "FROM FILMS as f " +
-                "LEFT JOIN MPA AS m ON f.mpa_id = m.mpa_id ";
-        return jdbcTemplate.query(sql, this::mapRowToFilm);
+        return jdbcTemplate.query(SELECT_FILMS, this::mapRowToFilm);
+    }
+
+    @Override
+    public List<Film> findPage(Integer after, Integer limit) {
+        log.debug("FilmDbStorage: запрос к БД на получение {} фильмов с id больше {}.", limit, after);
+        String sql = SELECT_FILMS +
+                "WHERE film_id > ? " +
+                "ORDER BY film_id " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, this::mapRowToFilm, after, limit);
+    }
+
+    @Override
+    public void forEachChunk(Integer chunkSize, Consumer<List<Film>> action) {
+        log.debug("FilmDbStorage: потоковое чтение всех фильмов из БД порциями по {}.", chunkSize);
+        int after = 0;
+        while (true) {
+            int from = after;
+            List<Film> films = likeJournal.readConsistent(() -> chunkTemplate.execute(status -> {
+                List<Film> page = findPage(from, chunkSize);
+                setGenres(page);
+                setLikes(page);
+                return page;
+            }));
+            if (films.isEmpty()) {
+                return;
+            }
+            action.accept(films);
+            if (films.size() < chunkSize) {
+                return;
+            }
+            after = films.get(films.size() - 1).getId();
+        }
     }
 
     @Override
     public Film get(Integer filmId) {
+        Film cached = filmCache.getIfPresent(filmId);
+        if (cached != null) {
+            log.debug("FilmDbStorage: фильм с id: {} получен из кэша.", filmId);
+            return cached;
+        }
+        long generation = filmCache.generation(filmId);
         log.debug("FilmDbStorage: запрос к БД на получение фильма с id: {}.", filmId);
-        String sql = "SELECT f.film_id, f.film_name, f.film_description, f.film_release_date, f.film_duration, " +
-                "f.film_rate, f.mpa_id, m.mpa_rating " +
-                "FROM FILMS AS f " +
-                "LEFT JOIN MPA AS m ON f.mpa_id = m.mpa_id " +
+        String sql = SELECT_FILMS +
                 "WHERE film_id = ?";
-        Film result = jdbcTemplate.queryForObject(sql, this::mapRowToFilm, filmId);
-        assert result != null;
-        this.setLike(result);
-        this.setGenre(result);
+        Film result = likeJournal.readConsistent(() -> {
+            Film film = jdbcTemplate.queryForObject(sql, this::mapRowToFilm, filmId);
+            assert film != null;
+            this.setLike(film);
+            this.setGenre(film);
+            return film;
+        });
+        TransactionHooks.afterCommit(() -> filmCache.put(result, generation));
+        return result;
+    }
+
+    @Override
+    public List<Film> getByIds(List<Integer> filmIds) {
+        Map<Integer, Film> filmsById = new HashMap<>();
+        Map<Integer, Long> generations = new HashMap<>();
+        for (Integer filmId : filmIds) {
+            Film cached = filmCache.getIfPresent(filmId);
+            if (cached != null) {
+                filmsById.put(filmId, cached);
+            } else {
+                generations.put(filmId, filmCache.generation(filmId));
+            }
+        }
+        log.debug("FilmDbStorage: из {} фильмов в кэше найдено {}, из БД загружается {}.",
+                filmIds.size(), filmsById.size(), generations.size());
+        List<Film> loaded = likeJournal.readConsistent(() -> {
+            List<Film> films = new ArrayList<>();
+            for (List<Integer> chunk : SqlUtils.partition(generations.keySet())) {
+                String sql = SELECT_FILMS +
+                        "WHERE film_id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+                films.addAll(jdbcTemplate.query(sql, this::mapRowToFilm, chunk.toArray()));
+            }
+            setGenres(films);
+            setLikes(films);
+            return films;
+        });
+        for (Film film : loaded) {
+            filmsById.put(film.getId(), film);
+        }
+        TransactionHooks.afterCommit(() -> {
+            for (Film film : loaded) {
+                filmCache.put(film, generations.get(film.getId()));
+            }
+        });
+
+        List<Film> result = new ArrayList<>(filmIds.size());
+        for (Integer filmId : filmIds) {
+            Film film = filmsById.get(filmId);
+            if (film != null) {
+                result.add(film);
+            }
+        }
         return result;
     }
 
@@ -56,10 +192,19 @@ public class FilmDbStorage implements FilmStorage {
         SimpleJdbcInsert filmJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
                 .withTableName("FILMS")
                 .usingGeneratedKeyColumns("film_id");
-        Integer filmId = filmJdbcInsert.executeAndReturnKey(film.filmToMap()).intValue();
+        Map<String, Object> values = film.filmToMap();
+        values.put("film_rate", 0);
+        Integer filmId = identityAllocator.generate(() ->
+                filmJdbcInsert.executeAndReturnKey(values).intValue());
         film.setId(filmId);
-        updateGenre(film);
-        return get(filmId);
+        updateGenre(film, Collections.emptySet());
+        Film created = get(filmId);
+        TransactionHooks.afterCommit(() -> {
+            filmIds.add(filmId);
+            popularityIndex.put(created);
+            filmSearchIndex.add(filmId, created.getName(), created.getDescription());
+        });
+        return created;
     }
 
     @Override
@@ -67,60 +212,116 @@ public class FilmDbStorage implements FilmStorage {
         int filmId = film.getId();
         log.debug("FilmDbStorage: запрос к БД на обновление фильма с id: {}.", filmId);
         String sql = "UPDATE FILMS " +
-                "SET film_name = ?, film_description = ?, film_release_date = ?, film_duration = ?, " +
-                "film_rate = ?, mpa_id = ? " +
+                "SET film_name = ?, film_description = ?, film_release_date = ?, film_duration = ?, mpa_id = ? " +
                 "WHERE film_id = ?";
         jdbcTemplate.update(sql,
                 film.getName(),
                 film.getDescription(),
                 film.getReleaseDate(),
                 film.getDuration(),
-                film.getRate(),
                 film.getMpa().getId(),
                 film.getId());
-        deleteFilmGenre(filmId);
-        updateGenre(film);
-        return get(film.getId());
+        updateGenre(film, getStoredGenreIds(filmId));
+        filmCache.invalidate(filmId);
+        Film updated = get(filmId);
+        TransactionHooks.afterCommit(() -> {
+            filmCache.invalidate(filmId);
+            popularityIndex.put(updated);
+            filmSearchIndex.add(filmId, updated.getName(), updated.getDescription());
+        });
+        return updated;
     }
 
     @Override
     public Film delete(Integer filmId) {
         log.debug("FilmDbStorage: запрос к БД на удаление фильма с id: {}.", filmId);
+        if (likeJournal.isEnabled()) {
+            likeJournal.flush();
+        }
         String sqlDeleteGenre = "DELETE FROM FILM_GENRES WHERE film_id = ?";
         jdbcTemplate.update(sqlDeleteGenre, filmId);
         String sqlDeleteLike = "DELETE FROM LIKES WHERE film_id = ?";
         jdbcTemplate.update(sqlDeleteLike, filmId);
+        String sqlDeleteSignature = "DELETE FROM FILM_SIGNATURES WHERE film_id = ?";
+        jdbcTemplate.update(sqlDeleteSignature, filmId);
         String sqlDelete = "DELETE FROM FILMS WHERE film_id = ?";
         Film deletedFilm = get(filmId);
         jdbcTemplate.update(sqlDelete, filmId);
+        TransactionHooks.afterCommit(() -> {
+            filmIds.remove(filmId);
+            filmCache.invalidate(filmId);
+            popularityIndex.remove(filmId);
+            likeGraph.deleteFilm(filmId);
+            similarFilmsIndex.deleteFilm(filmId);
+            filmSearchIndex.remove(filmId);
+        });
         return deletedFilm;
     }
 
-    private void deleteFilmGenre(Integer filmId) {
-        log.debug("FilmDbStorage: запрос на удаление фильма с id: {} в хранилище жанров.", filmId);
-        String sqlDeleteGenre = "DELETE FROM FILM_GENRES WHERE film_id = ?";
-        jdbcTemplate.update(sqlDeleteGenre, filmId);
+    @Override
+    public List<Film> search(String query, Integer limit) {
+        log.debug("FilmDbStorage: поиск не более {} фильмов по запросу: {}.", limit, query);
+        return getByIds(filmSearchIndex.search(query, limit));
+    }
+
+    private Set<Integer> getStoredGenreIds(Integer filmId) {
+        log.debug("FilmDbStorage: запрос к БД на получение сохраненных жанров фильма с id: {}.", filmId);
+        String sql = "SELECT genre_id " +
+                "FROM FILM_GENRES " +
+                "WHERE film_id = ?";
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Integer.class, filmId));
     }
 
-    private void updateGenre(Film film) {
+    private void updateGenre(Film film, Set<Integer> storedGenreIds) {
         int filmId = film.getId();
         log.debug("FilmDbStorage: запрос на обновление жанров фильма с id: {}.", filmId);
-        String sqlAddGenre = "INSERT INTO FILM_GENRES (film_id, genre_id) " +
-                "values (?, ?)";
-
+        Set<Integer> genreIds = new HashSet<>();
         for (Genre genre : film.getGenres()) {
-            jdbcTemplate.update(sqlAddGenre, filmId, genre.getId());
+            genreIds.add(genre.getId());
+        }
+
+        List<Object[]> removedGenres = new ArrayList<>();
+        for (Integer genreId : storedGenreIds) {
+            if (!genreIds.contains(genreId)) {
+                removedGenres.add(new Object[]{filmId, genreId});
+            }
+        }
+        List<Object[]> addedGenres = new ArrayList<>();
+        for (Integer genreId : genreIds) {
+            if (!storedGenreIds.contains(genreId)) {
+                addedGenres.add(new Object[]{filmId, genreId});
+            }
+        }
+
+        if (!removedGenres.isEmpty()) {
+            String sqlDeleteGenre = "DELETE FROM FILM_GENRES WHERE film_id = ? AND genre_id = ?";
+            jdbcTemplate.batchUpdate(sqlDeleteGenre, removedGenres);
         }
+        if (!addedGenres.isEmpty()) {
+            String sqlAddGenre = "INSERT INTO FILM_GENRES (film_id, genre_id) " +
+                    "values (?, ?)";
+            jdbcTemplate.batchUpdate(sqlAddGenre, addedGenres);
+        }
+        log.debug("FilmDbStorage: у фильма с id: {} удалено жанров: {}, добавлено жанров: {}.",
+                filmId, removedGenres.size(), addedGenres.size());
     }
 
     @Override
     public boolean validateDataExists(Integer filmId) {
+        if (filmIds.contains(filmId)) {
+            return true;
+        }
         log.debug("FilmDbStorage: запрос на проверку наличия фильма с id: {} в базе данных фильмов.", filmId);
         String sql = "SELECT COUNT(*) AS count " +
                 "FROM FILMS " +
                 "WHERE film_id = ?";
+        long removalsBefore = filmIds.removals();
         int count = jdbcTemplate.queryForObject(sql, this::mapRowToCount, filmId);
-        return count != 0;
+        if (count == 0) {
+            return false;
+        }
+        TransactionHooks.afterCommit(() -> filmIds.addIfNotRemovedSince(filmId, removalsBefore));
+        return true;
     }
 
     public void setLike(Film film) {
@@ -128,19 +329,67 @@ public class FilmDbStorage implements FilmStorage {
         String sql = "SELECT user_id " +
                 "FROM LIKES " +
                 "WHERE film_id = ?";
-        Set<Integer> likes = new HashSet<>(jdbcTemplate.query(sql, this::mapRowToLike, film.getId()));
-        film.getLikes().addAll(likes);
+        jdbcTemplate.query(sql, rs -> {
+            film.getLikes().add(rs.getInt("user_id"));
+        }, film.getId());
+        likeJournal.applyPending(film);
     }
 
     @Override
     public void setGenre(Film film) {
-        log.debug("FilmDbStorage: установлено значение поля name у жанров фильма с id: {}.", film.getId());
-        String sql = "SELECT fg.genre_id, g.genre " +
-                "FROM FILM_GENRES AS fg " +
-                "LEFT JOIN GENRES AS g ON fg.genre_id = g.genre_id " +
+        log.debug("FilmDbStorage: установлено значение поля genres у фильма с id: {}.", film.getId());
+        String sql = "SELECT genre_id " +
+                "FROM FILM_GENRES " +
                 "WHERE film_id = ?";
-        Set<Genre> genre = new HashSet<>(jdbcTemplate.query(sql, this::mapRowToGenre, film.getId()));
-        film.getGenres().addAll(genre);
+        jdbcTemplate.query(sql, rs -> {
+            addGenre(film, rs.getInt("genre_id"));
+        }, film.getId());
+    }
+
+    @Override
+    public void setGenres(List<Film> films) {
+        log.debug("FilmDbStorage: запрос к БД на получение жанров для {} фильмов.", films.size());
+        Map<Integer, Film> filmsById = mapById(films);
+        for (List<Integer> chunk : SqlUtils.partition(filmsById.keySet())) {
+            String sql = "SELECT film_id, genre_id " +
+                    "FROM FILM_GENRES " +
+                    "WHERE film_id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                addGenre(filmsById.get(rs.getInt("film_id")), rs.getInt("genre_id"));
+            }, chunk.toArray());
+        }
+    }
+
+    @Override
+    public void setLikes(List<Film> films) {
+        log.debug("FilmDbStorage: запрос к БД на получение лайков для {} фильмов.", films.size());
+        Map<Integer, Film> filmsById = mapById(films);
+        for (List<Integer> chunk : SqlUtils.partition(filmsById.keySet())) {
+            String sql = "SELECT film_id, user_id " +
+                    "FROM LIKES " +
+                    "WHERE film_id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                filmsById.get(rs.getInt("film_id")).getLikes().add(rs.getInt("user_id"));
+            }, chunk.toArray());
+        }
+        for (Film film : films) {
+            likeJournal.applyPending(film);
+        }
+    }
+
+    private void addGenre(Film film, Integer genreId) {
+        Genre genre = referenceDataRegistry.getGenre(genreId);
+        if (genre != null) {
+            film.getGenres().add(genre);
+        }
+    }
+
+    private Map<Integer, Film> mapById(List<Film> films) {
+        Map<Integer, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+        }
+        return filmsById;
     }
 
     public Film mapRowToFilm(ResultSet rs, Integer rowNum) throws SQLException {
@@ -152,8 +401,7 @@ public class FilmDbStorage implements FilmStorage {
                 .releaseDate(rs.getDate("film_release_date").toLocalDate())
                 .duration(rs.getLong("film_duration"))
                 .rate(rs.getInt("film_rate"))
-                .mpa(Mpa.builder().id(rs.getInt("mpa_id"))
-                        .name(rs.getString("mpa_rating")).build())
+                .mpa(referenceDataRegistry.getMpa(rs.getInt("mpa_id")))
                 .build();
     }
 
@@ -161,17 +409,4 @@ public class FilmDbStorage implements FilmStorage {
         log.debug("RowMapper: получен запрос от БД на преобразование в количество записей");
         return rs.getInt("count");
     }
-
-    public Genre mapRowToGenre(ResultSet rs, Integer rowNum) throws SQLException {
-        log.debug("RowMapper: получен запрос от БД на преобразование в Жанр.");
-        return Genre.builder()
-                .id(rs.getInt("genre_id"))
-                .name(rs.getString("genre"))
-                .build();
-    }
-
-    public Integer mapRowToLike(ResultSet rs, Integer rowNum) throws SQLException {
-        log.debug("RowMapper: получен запрос от БД на преобразование в лайк.");
-        return rs.getInt("user_id");
-    }
 }
@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.IntIntHashMap;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+@Slf4j
+@Component
+public class FilmRecommender {
+    private static final int NEIGHBOURS = 50;
+    private static final int MAX_LIKERS_PER_FILM = 20_000;
+    private static final int FILMS_PER_TASK = 32;
+    private static final int SCORE_SCALE = 1_000_000;
+    private static final int MAX_CACHED_USERS = 10_000;
+    private static final long CACHE_TTL_MILLIS = 60_000;
+    private final LikeGraph likeGraph;
+    private final ForkJoinPool forkJoinPool = new ForkJoinPool();
+    private final Map<Integer, CachedRecommendations> cache =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, CachedRecommendations> eldest) {
+                    return size() > MAX_CACHED_USERS;
+                }
+            };
+
+    @Autowired
+    public FilmRecommender(LikeGraph likeGraph) {
+        this.likeGraph = likeGraph;
+    }
+
+    public List<Integer> recommend(int userId, int limit) {
+        int[] filmIds = recommendFilmIds(userId, limit);
+        List<Integer> result = new ArrayList<>(filmIds.length);
+        for (int filmId : filmIds) {
+            result.add(filmId);
+        }
+        return result;
+    }
+
+    private int[] recommendFilmIds(int userId, int limit) {
+        Object likesVersion = likeGraph.likedFilmsVersion(userId);
+        CachedRecommendations cached;
+        synchronized (cache) {
+            cached = cache.get(userId);
+        }
+        if (cached != null && cached.isValid(likesVersion, limit)) {
+            log.debug("FilmRecommender: рекомендации для пользователя с id: {} получены из кэша.", userId);
+            return Arrays.copyOf(cached.filmIds, Math.min(limit, cached.filmIds.length));
+        }
+
+        int[] filmIds = computeRecommendations(userId, limit);
+        synchronized (cache) {
+            cache.put(userId, new CachedRecommendations(likesVersion, limit, filmIds));
+        }
+        return filmIds;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        forkJoinPool.shutdown();
+    }
+
+    private int[] computeRecommendations(int userId, int limit) {
+        int[] likedFilms = likeGraph.likedFilms(userId);
+        if (likedFilms.length == 0) {
+            return new int[0];
+        }
+        IntIntHashMap overlaps = forkJoinPool.invoke(new OverlapTask(userId, likedFilms, 0, likedFilms.length));
+
+        PriorityQueue<Long> neighbours = new PriorityQueue<>(NEIGHBOURS + 1);
+        overlaps.forEach((otherId, overlap) -> {
+            double similarity = overlap / Math.sqrt((double) likedFilms.length * likeGraph.likedFilmsCount(otherId));
+            neighbours.add(pack(Float.floatToIntBits((float) similarity), otherId));
+            if (neighbours.size() > NEIGHBOURS) {
+                neighbours.poll();
+            }
+        });
+
+        IntIntHashMap scores = new IntIntHashMap();
+        for (long neighbour : neighbours) {
+            int weight = (int) (Float.intBitsToFloat((int) (neighbour >>> 32)) * SCORE_SCALE);
+            likeGraph.forEachLikedFilm(unpackId(neighbour), filmId -> {
+                if (Arrays.binarySearch(likedFilms, filmId) < 0) {
+                    scores.addTo(filmId, weight);
+                }
+            });
+        }
+
+        PriorityQueue<Long> topFilms = new PriorityQueue<>(limit + 1);
+        scores.forEach((filmId, score) -> {
+            topFilms.add(pack(score, filmId));
+            if (topFilms.size() > limit) {
+                topFilms.poll();
+            }
+        });
+        int[] result = new int[topFilms.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = unpackId(topFilms.poll());
+        }
+        return result;
+    }
+
+    private static long pack(int rank, int id) {
+        return ((long) rank << 32) | (~id & 0xFFFFFFFFL);
+    }
+
+    private static int unpackId(long packed) {
+        return ~(int) packed;
+    }
+
+    private class OverlapTask extends RecursiveTask<IntIntHashMap> {
+        private final int userId;
+        private final int[] likedFilms;
+        private final int from;
+        private final int to;
+
+        private OverlapTask(int userId, int[] likedFilms, int from, int to) {
+            this.userId = userId;
+            this.likedFilms = likedFilms;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected IntIntHashMap compute() {
+            if (to - from <= FILMS_PER_TASK) {
+                IntIntHashMap overlaps = new IntIntHashMap();
+                for (int i = from; i < to; i++) {
+                    if (likeGraph.likersCount(likedFilms[i]) > MAX_LIKERS_PER_FILM) {
+                        continue;
+                    }
+                    likeGraph.forEachLiker(likedFilms[i], otherId -> {
+                        if (otherId != userId) {
+                            overlaps.addTo(otherId, 1);
+                        }
+                    });
+                }
+                return overlaps;
+            }
+            int middle = (from + to) >>> 1;
+            OverlapTask left = new OverlapTask(userId, likedFilms, from, middle);
+            left.fork();
+            IntIntHashMap right = new OverlapTask(userId, likedFilms, middle, to).compute();
+            IntIntHashMap merged = left.join();
+            if (merged.size() < right.size()) {
+                IntIntHashMap swap = merged;
+                merged = right;
+                right = swap;
+            }
+            IntIntHashMap target = merged;
+            right.forEach(target::addTo);
+            return target;
+        }
+    }
+
+    private static final class CachedRecommendations {
+        private final Object likesVersion;
+        private final int limit;
+        private final int[] filmIds;
+        private final long createdAt = System.currentTimeMillis();
+
+        private CachedRecommendations(Object likesVersion, int limit, int[] filmIds) {
+            this.likesVersion = likesVersion;
+            this.limit = limit;
+            this.filmIds = filmIds;
+        }
+
+        private boolean isValid(Object currentLikesVersion, int requestedLimit) {
+            return likesVersion == currentLikesVersion
+                    && (requestedLimit <= limit || filmIds.length < limit)
+                    && System.currentTimeMillis() - createdAt < CACHE_TTL_MILLIS;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.transfer.DataImportedEvent;
+import ru.yandex.practicum.filmorate.util.AdjacencyRows;
+import ru.yandex.practicum.filmorate.util.IntIntHashMap;
+
+import javax.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class FilmSearchIndex {
+    private static final int FETCH_SIZE = 10_000;
+    private static final int MAX_FREQUENCY = 7;
+    private static final int LOCK_STRIPES = 256;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int SCORE_SCALE = 10_000;
+    private static final int MAX_ACCUMULATED_POSTINGS = 50_000;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private final Object[] filmLocks = new Object[LOCK_STRIPES];
+    private volatile Index index = new Index(new ConcurrentHashMap<>(), emptyRows(), emptyRows(), new Lengths(),
+            0, 0);
+
+    @Autowired
+    public FilmSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            filmLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    @EventListener(value = DataImportedEvent.class, condition = "#root.event.type == 'films'")
+    public void rebuild() {
+        log.debug("FilmSearchIndex: построение поискового индекса фильмов из БД.");
+        String sql = "SELECT film_id, film_name, film_description " +
+                "FROM FILMS " +
+                "ORDER BY film_id";
+        PreparedStatementCreator statementCreator = connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        };
+        Builder builder = new Builder();
+        RowCallbackHandler rowHandler = rs -> builder.add(rs.getInt("film_id"),
+                rs.getString("film_name"), rs.getString("film_description"));
+        jdbcTemplate.query(statementCreator, rowHandler);
+        replace(builder);
+        log.debug("FilmSearchIndex: в индекс загружено фильмов: {}, термов: {}.",
+                index.documents.get(), index.termIds.size());
+    }
+
+    public void replace(Builder builder) {
+        Index built = builder.build();
+        indexLock.writeLock().lock();
+        try {
+            index = built;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    public void add(int filmId, String name, String description) {
+        Map<String, Integer> frequencies = frequencies(name, description);
+        indexLock.readLock().lock();
+        try {
+            synchronized (filmLock(filmId)) {
+                Index current = index;
+                remove(current, filmId);
+                int length = 0;
+                for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                    int termId = current.termIds.computeIfAbsent(entry.getKey(),
+                            term -> current.nextTermId.getAndIncrement());
+                    int frequency = Math.min(entry.getValue(), MAX_FREQUENCY);
+                    current.postings[frequency - 1].add(termId, filmId);
+                    current.filmTerms[frequency - 1].add(filmId, termId);
+                    length += entry.getValue();
+                }
+                if (length > 0) {
+                    current.lengths.set(filmId, length);
+                    current.documents.incrementAndGet();
+                    current.totalLength.addAndGet(length);
+                }
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    public void remove(int filmId) {
+        indexLock.readLock().lock();
+        try {
+            synchronized (filmLock(filmId)) {
+                remove(index, filmId);
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    public List<Integer> search(String query, int limit) {
+        Index current = index;
+        List<Integer> result = new ArrayList<>();
+        long[] terms = queryTerms(current, query);
+        int documents = current.documents.get();
+        if (terms.length == 0 || documents == 0) {
+            return result;
+        }
+        double averageLength = (double) current.totalLength.get() / documents;
+        IntIntHashMap scores = new IntIntHashMap();
+        for (long term : terms) {
+            int documentFrequency = (int) (term >>> 32);
+            int termId = (int) term;
+            double idf = Math.log(1 + (documents - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            boolean filter = scores.size() > 0 && documentFrequency > MAX_ACCUMULATED_POSTINGS;
+            int[] candidates = filter ? sortedKeys(scores) : null;
+            for (int frequency = 1; frequency <= MAX_FREQUENCY; frequency++) {
+                int termFrequency = frequency;
+                if (filter) {
+                    int[] cursor = new int[1];
+                    current.postings[frequency - 1].forEach(termId, filmId -> {
+                        while (cursor[0] < candidates.length && candidates[cursor[0]] < filmId) {
+                            cursor[0]++;
+                        }
+                        if (cursor[0] < candidates.length && candidates[cursor[0]] == filmId) {
+                            scores.addTo(filmId, score(current, idf, averageLength, filmId, termFrequency));
+                        }
+                    });
+                } else {
+                    current.postings[frequency - 1].forEach(termId, filmId ->
+                            scores.addTo(filmId, score(current, idf, averageLength, filmId, termFrequency)));
+                }
+            }
+        }
+
+        PriorityQueue<Long> topFilms = new PriorityQueue<>(limit + 1);
+        scores.forEach((filmId, score) -> {
+            topFilms.add(((long) score << 32) | (~filmId & 0xFFFFFFFFL));
+            if (topFilms.size() > limit) {
+                topFilms.poll();
+            }
+        });
+        Integer[] filmIds = new Integer[topFilms.size()];
+        for (int i = filmIds.length - 1; i >= 0; i--) {
+            filmIds[i] = ~topFilms.poll().intValue();
+        }
+        result.addAll(Arrays.asList(filmIds));
+        return result;
+    }
+
+    public int size() {
+        return index.documents.get();
+    }
+
+    public long memoryFootprint() {
+        Index current = index;
+        long bytes = current.lengths.memoryFootprint();
+        for (int i = 0; i < MAX_FREQUENCY; i++) {
+            bytes += current.postings[i].memoryFootprint() + current.filmTerms[i].memoryFootprint();
+        }
+        for (String term : current.termIds.keySet()) {
+            bytes += 88 + 2L * term.length();
+        }
+        return bytes;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        int position = 0;
+        while (position < text.length()) {
+            int codePoint = text.codePointAt(position);
+            position += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                codePoint = Character.toLowerCase(codePoint);
+                token.appendCodePoint(codePoint == 'ё' ? 'е' : codePoint);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    private Object filmLock(int filmId) {
+        return filmLocks[(filmId ^ (filmId >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private static void remove(Index current, int filmId) {
+        for (int frequency = 1; frequency <= MAX_FREQUENCY; frequency++) {
+            for (int termId : current.filmTerms[frequency - 1].removeRow(filmId)) {
+                current.postings[frequency - 1].remove(termId, filmId);
+            }
+        }
+        int length = current.lengths.get(filmId);
+        if (length > 0) {
+            current.lengths.set(filmId, 0);
+            current.documents.decrementAndGet();
+            current.totalLength.addAndGet(-length);
+        }
+    }
+
+    private static long[] queryTerms(Index current, String query) {
+        List<String> tokens = tokenize(query);
+        long[] terms = new long[tokens.size()];
+        int count = 0;
+        for (String token : tokens) {
+            Integer termId = current.termIds.get(token);
+            if (termId == null) {
+                continue;
+            }
+            int documentFrequency = 0;
+            for (int i = 0; i < MAX_FREQUENCY; i++) {
+                documentFrequency += current.postings[i].size(termId);
+            }
+            long term = ((long) documentFrequency << 32) | termId;
+            boolean duplicate = false;
+            for (int i = 0; i < count; i++) {
+                duplicate |= terms[i] == term;
+            }
+            if (!duplicate) {
+                terms[count++] = term;
+            }
+        }
+        terms = Arrays.copyOf(terms, count);
+        Arrays.sort(terms);
+        return terms;
+    }
+
+    private static int score(Index current, double idf, double averageLength, int filmId, int frequency) {
+        int length = current.lengths.get(filmId);
+        double norm = K1 * (1 - B + B * length / averageLength);
+        return (int) (idf * frequency * (K1 + 1) / (frequency + norm) * SCORE_SCALE);
+    }
+
+    private static int[] sortedKeys(IntIntHashMap map) {
+        int[] keys = new int[map.size()];
+        int[] count = new int[1];
+        map.forEach((key, value) -> keys[count[0]++] = key);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static Map<String, Integer> frequencies(String name, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokenize(name)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        for (String token : tokenize(description)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    private static AdjacencyRows[] emptyRows() {
+        AdjacencyRows[] rows = new AdjacencyRows[MAX_FREQUENCY];
+        for (int i = 0; i < MAX_FREQUENCY; i++) {
+            rows[i] = new AdjacencyRows();
+        }
+        return rows;
+    }
+
+    public static class Builder {
+        private final Map<String, Integer> termIds = new HashMap<>();
+        private final AdjacencyRows.Builder[] filmTerms = new AdjacencyRows.Builder[MAX_FREQUENCY];
+        private final long[][] postings = new long[MAX_FREQUENCY][1024];
+        private final int[] postingCounts = new int[MAX_FREQUENCY];
+        private final Lengths lengths = new Lengths();
+        private int documents;
+        private long totalLength;
+
+        public Builder() {
+            for (int i = 0; i < MAX_FREQUENCY; i++) {
+                filmTerms[i] = new AdjacencyRows.Builder();
+            }
+        }
+
+        public void add(int filmId, String name, String description) {
+            Map<String, Integer> frequencies = frequencies(name, description);
+            long[] terms = new long[frequencies.size()];
+            int count = 0;
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                Integer termId = termIds.get(entry.getKey());
+                if (termId == null) {
+                    termId = termIds.size();
+                    termIds.put(entry.getKey(), termId);
+                }
+                int frequency = Math.min(entry.getValue(), MAX_FREQUENCY);
+                terms[count++] = ((long) frequency << 32) | termId;
+                addPosting(frequency - 1, ((long) termId << 32) | filmId);
+                length += entry.getValue();
+            }
+            Arrays.sort(terms);
+            for (long term : terms) {
+                filmTerms[(int) (term >>> 32) - 1].add(filmId, (int) term);
+            }
+            if (length > 0) {
+                lengths.set(filmId, length);
+                documents++;
+                totalLength += length;
+            }
+        }
+
+        private void addPosting(int row, long posting) {
+            if (postingCounts[row] == postings[row].length) {
+                postings[row] = Arrays.copyOf(postings[row], postingCounts[row] * 2);
+            }
+            postings[row][postingCounts[row]++] = posting;
+        }
+
+        private Index build() {
+            AdjacencyRows[] postingRows = new AdjacencyRows[MAX_FREQUENCY];
+            AdjacencyRows[] filmTermRows = new AdjacencyRows[MAX_FREQUENCY];
+            for (int i = 0; i < MAX_FREQUENCY; i++) {
+                long[] sorted = Arrays.copyOf(postings[i], postingCounts[i]);
+                Arrays.sort(sorted);
+                AdjacencyRows.Builder rows = new AdjacencyRows.Builder();
+                for (long posting : sorted) {
+                    rows.add((int) (posting >>> 32), (int) posting);
+                }
+                postingRows[i] = rows.build();
+                filmTermRows[i] = filmTerms[i].build();
+            }
+            return new Index(new ConcurrentHashMap<>(termIds), postingRows, filmTermRows, lengths,
+                    documents, totalLength);
+        }
+    }
+
+    private static final class Lengths {
+        private static final int SEGMENT_SHIFT = 16;
+        private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+        private static final int SEGMENT_COUNT = 1 << (Integer.SIZE - 1 - SEGMENT_SHIFT);
+        private final AtomicReferenceArray<int[]> segments = new AtomicReferenceArray<>(SEGMENT_COUNT);
+
+        private int get(int filmId) {
+            int[] segment = filmId < 0 ? null : segments.get(filmId >>> SEGMENT_SHIFT);
+            return segment == null ? 0 : segment[filmId & (SEGMENT_SIZE - 1)];
+        }
+
+        private void set(int filmId, int length) {
+            int index = filmId >>> SEGMENT_SHIFT;
+            int[] segment = segments.get(index);
+            if (segment == null) {
+                if (length == 0) {
+                    return;
+                }
+                segments.compareAndSet(index, null, new int[SEGMENT_SIZE]);
+                segment = segments.get(index);
+            }
+            segment[filmId & (SEGMENT_SIZE - 1)] = length;
+        }
+
+        private long memoryFootprint() {
+            long bytes = (long) SEGMENT_COUNT * Integer.BYTES;
+            for (int i = 0; i < SEGMENT_COUNT; i++) {
+                if (segments.get(i) != null) {
+                    bytes += (long) SEGMENT_SIZE * Integer.BYTES;
+                }
+            }
+            return bytes;
+        }
+    }
+
+    private static final class Index {
+        private final Map<String, Integer> termIds;
+        private final AdjacencyRows[] postings;
+        private final AdjacencyRows[] filmTerms;
+        private final Lengths lengths;
+        private final AtomicInteger documents;
+        private final AtomicLong totalLength;
+        private final AtomicInteger nextTermId;
+
+        private Index(Map<String, Integer> termIds, AdjacencyRows[] postings, AdjacencyRows[] filmTerms,
+                      Lengths lengths, int documents, long totalLength) {
+            this.termIds = termIds;
+            this.postings = postings;
+            this.filmTerms = filmTerms;
+            this.lengths = lengths;
+            this.documents = new AtomicInteger(documents);
+            this.totalLength = new AtomicLong(totalLength);
+            this.nextTermId = new AtomicInteger(termIds.size());
+        }
+    }
+}
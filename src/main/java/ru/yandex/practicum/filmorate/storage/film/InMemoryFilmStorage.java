@@ -5,9 +5,13 @@ import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.filmImpl.FilmStorage;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 //@Component
@@ -24,11 +28,45 @@ public class InMemoryFilmStorage implements FilmStorage {
         return new ArrayList<>(allFilms.values());
     }
 
+    public List<Film> findPage(Integer after, Integer limit) {
+        return allFilms.values().stream()
+                .filter(film -> film.getId() > after)
+                .sorted(Comparator.comparing(Film::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public void forEachChunk(Integer chunkSize, Consumer<List<Film>> action) {
+        List<Film> sortedFilms = allFilms.values().stream()
+                .sorted(Comparator.comparing(Film::getId))
+                .collect(Collectors.toList());
+        for (int from = 0; from < sortedFilms.size(); from += chunkSize) {
+            action.accept(sortedFilms.subList(from, Math.min(from + chunkSize, sortedFilms.size())));
+        }
+    }
+
     public Film get(Integer filmId) {
         log.debug("InMemoryFilmStorage: фильм c id: {} получен.", filmId);
         return allFilms.get(filmId);
     }
 
+    public List<Film> getByIds(List<Integer> filmIds) {
+        return filmIds.stream()
+                .map(allFilms::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    public List<Film> search(String query, Integer limit) {
+        String lowerCaseQuery = query.toLowerCase();
+        return allFilms.values().stream()
+                .filter(film -> film.getName().toLowerCase().contains(lowerCaseQuery)
+                        || film.getDescription().toLowerCase().contains(lowerCaseQuery))
+                .sorted(Comparator.comparing(Film::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
     public Film create(Film film) {
             film.setId(generateNextId());
             allFilms.put(film.getId(), film);
@@ -54,4 +92,12 @@ public class InMemoryFilmStorage implements FilmStorage {
     @Override
     public void setGenre(Film film) {
     }
+
+    @Override
+    public void setGenres(List<Film> films) {
+    }
+
+    @Override
+    public void setLikes(List<Film> films) {
+    }
 }
@@ -2,106 +2,268 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.GroupCommitExecutor;
+import ru.yandex.practicum.filmorate.storage.SqlUtils;
+import ru.yandex.practicum.filmorate.storage.TransactionHooks;
 import ru.yandex.practicum.filmorate.storage.filmImpl.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.filmImpl.LikeStorage;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.HashSet;
+import javax.annotation.PostConstruct;
 import java.util.List;
-import java.util.Set;
 
 @Slf4j
 @Repository("LikeDbStorage")
 public class LikeDbStorage implements LikeStorage {
+    private static final int LOCK_STRIPES = 256;
     private final JdbcTemplate jdbcTemplate;
     private final FilmStorage filmStorage;
+    private final FilmCache filmCache;
+    private final PopularityIndex popularityIndex;
+    private final LikeGraph likeGraph;
+    private final SimilarFilmsIndex similarFilmsIndex;
+    private final FilmRecommender filmRecommender;
+    private final LikeJournal likeJournal;
+    private final GroupCommitExecutor groupCommitExecutor;
+    private final Object[] filmLocks = new Object[LOCK_STRIPES];
 
     @Autowired
-    public LikeDbStorage(JdbcTemplate jdbcTemplate, FilmStorage filmStorage) {
+    public LikeDbStorage(JdbcTemplate jdbcTemplate, FilmStorage filmStorage, FilmCache filmCache,
+                         PopularityIndex popularityIndex, LikeGraph likeGraph, SimilarFilmsIndex similarFilmsIndex,
+                         FilmRecommender filmRecommender, LikeJournal likeJournal,
+                         GroupCommitExecutor groupCommitExecutor) {
         this.jdbcTemplate = jdbcTemplate;
         this.filmStorage = filmStorage;
+        this.filmCache = filmCache;
+        this.popularityIndex = popularityIndex;
+        this.likeGraph = likeGraph;
+        this.similarFilmsIndex = similarFilmsIndex;
+        this.filmRecommender = filmRecommender;
+        this.likeJournal = likeJournal;
+        this.groupCommitExecutor = groupCommitExecutor;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            filmLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        likeJournal.setRejectionHandler(this::revertRejected);
     }
 
     @Override
     public Film likeFilm(Integer filmId, Integer userId) {
-        log.debug("LikesDbStorage: запрос к БД от пользователя с userId: {} лайк фильма с filmId: {}.", userId, filmId);
-        String sql = "INSERT INTO LIKES (film_id, user_id) " +
-                "VALUES (?, ?)";
-        jdbcTemplate.update(sql, filmId, userId);
-        updateRate(filmId, true);
+        addLike(filmId, userId);
         return filmStorage.get(filmId);
     }
 
     @Override
     public Film dislikeFilm(Integer filmId, Integer userId) {
+        removeLike(filmId, userId);
+        return filmStorage.get(filmId);
+    }
+
+    @Override
+    public boolean addLike(Integer filmId, Integer userId) {
+        if (likeJournal.isEnabled()) {
+            return addLikeWriteBehind(filmId, userId);
+        }
+        log.debug("LikesDbStorage: запрос к БД от пользователя с userId: {} лайк фильма с filmId: {}.", userId, filmId);
+        String sql = "INSERT INTO LIKES (film_id, user_id) " +
+                "SELECT ?, ? " +
+                "WHERE NOT EXISTS (SELECT 1 FROM LIKES WHERE film_id = ? AND user_id = ?)";
+        synchronized (filmLock(filmId)) {
+            boolean added;
+            try {
+                added = groupCommitExecutor.execute(() -> {
+                    boolean inserted = jdbcTemplate.update(sql, filmId, userId, filmId, userId) > 0;
+                    if (inserted) {
+                        updateRate(filmId, 1);
+                    }
+                    return inserted;
+                });
+            } catch (DuplicateKeyException e) {
+                log.debug("LikesDbStorage: лайк пользователя с userId: {} фильму с filmId: {} уже записан " +
+                        "параллельным запросом.", userId, filmId);
+                return false;
+            }
+            if (added) {
+                TransactionHooks.afterCommit(() -> applyLike(filmId, userId, true));
+            }
+            return added;
+        }
+    }
+
+    @Override
+    public boolean removeLike(Integer filmId, Integer userId) {
+        if (likeJournal.isEnabled()) {
+            return removeLikeWriteBehind(filmId, userId);
+        }
         log.debug("LikesDbStorage: запрос к БД от пользователя с userId: {} дизлай фильма с filmId: {}.", userId, filmId);
         String sqlDelete = "DELETE FROM LIKES WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sqlDelete, filmId, userId);
-        updateRate(filmId, false);
-        return filmStorage.get(filmId);
+        synchronized (filmLock(filmId)) {
+            boolean removed = groupCommitExecutor.execute(() -> {
+                boolean deleted = jdbcTemplate.update(sqlDelete, filmId, userId) > 0;
+                if (deleted) {
+                    updateRate(filmId, -1);
+                }
+                return deleted;
+            });
+            if (removed) {
+                TransactionHooks.afterCommit(() -> applyLike(filmId, userId, false));
+            }
+            return removed;
+        }
     }
 
     @Override
-    public List<Film> getMostPopularFilms(Integer count) {
-        log.debug("LikesDbStorage: запрос к БД на получение списка самых популярных фильмов размером {}.", count);
-        String sql = "SELECT * " +
-                "FROM FILMS as f " +
-                "LEFT JOIN MPA AS m ON f.mpa_id = m.mpa_id " +
-                "ORDER BY film_rate DESC " +
-                "LIMIT ?";
-        List<Film> result = jdbcTemplate.query(sql, this::mapRowToFilm, count);
+    public List<Film> getMostPopularFilms(Integer count, Integer genreId, Integer mpaId, Integer year) {
+        log.debug("LikesDbStorage: запрос к БД на получение списка самых популярных фильмов размером {} " +
+                "с фильтрами genreId: {}, mpaId: {}, year: {}.", count, genreId, mpaId, year);
+        List<Film> result = filmStorage.getByIds(popularityIndex.top(count, genreId, mpaId, year));
         log.debug("LikesDbStorage: список самых популярных фильмов длиной {} при запросе списка длиной {}.",
                 result.size(), count);
         return result;
     }
 
-    private void updateRate(Integer filmId, boolean isIncrease) {
-        log.debug("LikesDbStorage: запрос к БД на обновление поля film_rate с id: {} и параметром isIncrease = {}.",
-                filmId, isIncrease);
-        String sql;
-        if (isIncrease) {
-            sql = "UPDATE FILMS " +
-                    "SET film_rate = film_rate + 1 "
-                    + "WHERE film_id = ?";
-        } else {
-            sql = "UPDATE FILMS " +
-                    "SET film_rate = film_rate - 1 "
-                    + "WHERE film_id = ?";
-        }
-        jdbcTemplate.update(sql, filmId);
+    @Override
+    public List<Film> getSimilarFilms(Integer filmId, Integer count) {
+        log.debug("LikesDbStorage: запрос на получение {} фильмов, похожих на фильм с id: {}.", count, filmId);
+        return filmStorage.getByIds(similarFilmsIndex.similar(filmId, count));
     }
 
     @Override
-    public void setLike(Film film) {
-        log.debug("FilmDbStorage: установлено значение поля likes у фильма с id: {}.", film.getId());
-        String sql = "SELECT user_id " +
-                "FROM LIKES " +
+    public List<Film> getRecommendedFilms(Integer userId, Integer count) {
+        log.debug("LikesDbStorage: запрос на получение {} рекомендованных фильмов для пользователя с id: {}.",
+                count, userId);
+        return filmStorage.getByIds(filmRecommender.recommend(userId, count));
+    }
+
+    public void deleteUserLikes(Integer userId) {
+        log.debug("LikesDbStorage: запрос к БД на удаление всех лайков пользователя с id: {}.", userId);
+        flushPendingLikes();
+        String sqlDeleteLikes = "SELECT film_id FROM OLD TABLE (DELETE FROM LIKES WHERE user_id = ?)";
+        List<Integer> likedFilms = jdbcTemplate.queryForList(sqlDeleteLikes, Integer.class, userId);
+        if (likedFilms.isEmpty()) {
+            return;
+        }
+        String sqlUpdateRates = "UPDATE FILMS " +
+                "SET film_rate = COALESCE(film_rate, 0) - 1 " +
+                "WHERE film_id = ANY(?)";
+        for (List<Integer> chunk : SqlUtils.partition(likedFilms, SqlUtils.ARRAY_CHUNK_SIZE)) {
+            jdbcTemplate.update(sqlUpdateRates, (Object) chunk.toArray(new Integer[0]));
+        }
+        for (Integer filmId : likedFilms) {
+            filmCache.invalidate(filmId);
+        }
+        TransactionHooks.afterCommit(() -> {
+            for (Integer filmId : likedFilms) {
+                applyLike(filmId, userId, false);
+            }
+            likeGraph.deleteUser(userId);
+        });
+        log.debug("LikesDbStorage: удалено {} лайков пользователя с id: {}.", likedFilms.size(), userId);
+    }
+
+    public void flushPendingLikes() {
+        if (likeJournal.isEnabled()) {
+            likeJournal.flush();
+        }
+    }
+
+    private boolean addLikeWriteBehind(Integer filmId, Integer userId) {
+        log.debug("LikesDbStorage: лайк пользователя с userId: {} фильму с filmId: {} записан в журнал.", userId, filmId);
+        synchronized (filmLock(filmId)) {
+            if (!likeGraph.addLike(filmId, userId)) {
+                return false;
+            }
+            try {
+                likeJournal.like(filmId, userId);
+            } catch (RuntimeException e) {
+                likeGraph.removeLike(filmId, userId);
+                throw e;
+            }
+            filmCache.invalidate(filmId);
+            popularityIndex.adjust(filmId, 1);
+            similarFilmsIndex.addLike(filmId, userId);
+        }
+        likeJournal.flushIfClosed();
+        return true;
+    }
+
+    private boolean removeLikeWriteBehind(Integer filmId, Integer userId) {
+        log.debug("LikesDbStorage: дизлайк пользователя с userId: {} фильму с filmId: {} записан в журнал.",
+                userId, filmId);
+        synchronized (filmLock(filmId)) {
+            if (!likeGraph.removeLike(filmId, userId)) {
+                return false;
+            }
+            try {
+                likeJournal.dislike(filmId, userId);
+            } catch (RuntimeException e) {
+                likeGraph.addLike(filmId, userId);
+                throw e;
+            }
+            filmCache.invalidate(filmId);
+            popularityIndex.adjust(filmId, -1);
+            similarFilmsIndex.removeLike(filmId, userId);
+        }
+        likeJournal.flushIfClosed();
+        return true;
+    }
+
+    private void applyLike(int filmId, int userId, boolean liked) {
+        synchronized (filmLock(filmId)) {
+            if (liked ? !likeGraph.addLike(filmId, userId) : !likeGraph.removeLike(filmId, userId)) {
+                return;
+            }
+            filmCache.invalidate(filmId);
+            if (liked) {
+                popularityIndex.adjust(filmId, 1);
+                similarFilmsIndex.addLike(filmId, userId);
+            } else {
+                popularityIndex.adjust(filmId, -1);
+                similarFilmsIndex.removeLike(filmId, userId);
+            }
+        }
+    }
+
+    private void revertRejected(int filmId, int userId, boolean liked) {
+        synchronized (filmLock(filmId)) {
+            if (likeJournal.cancelPending(filmId, userId, !liked)) {
+                log.debug("LikesDbStorage: отклонённое изменение лайка пользователя с userId: {} фильму с filmId: {} " +
+                        "погашено обратным изменением из журнала.", userId, filmId);
+                return;
+            }
+            boolean reverted = liked ? likeGraph.removeLike(filmId, userId) : likeGraph.addLike(filmId, userId);
+            if (!reverted) {
+                return;
+            }
+            log.debug("LikesDbStorage: отклонённое изменение лайка пользователя с userId: {} фильму с filmId: {} " +
+                    "отменено в памяти.", userId, filmId);
+            filmCache.invalidate(filmId);
+            if (liked) {
+                popularityIndex.adjust(filmId, -1);
+                similarFilmsIndex.removeLike(filmId, userId);
+            } else {
+                popularityIndex.adjust(filmId, 1);
+                similarFilmsIndex.addLike(filmId, userId);
+            }
+        }
+    }
+
+    private Object filmLock(int filmId) {
+        return filmLocks[(filmId ^ (filmId >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private void updateRate(Integer filmId, int delta) {
+        log.debug("LikesDbStorage: запрос к БД на изменение поля film_rate фильма с id: {} на {}.", filmId, delta);
+        String sql = "UPDATE FILMS " +
+                "SET film_rate = COALESCE(film_rate, 0) + ? " +
                 "WHERE film_id = ?";
-        Set<Integer> likes = new HashSet<>(jdbcTemplate.query(sql, this::mapRowToLike, film.getId()));
-        film.getLikes().addAll(likes);
-    }
-
-    public Film mapRowToFilm(ResultSet rs, Integer rowNum) throws SQLException {
-        log.debug("RowMapper: получен запрос от БД на преобразование в Film.");
-        return Film.builder()
-                .id(rs.getInt("film_id"))
-                .name(rs.getString("film_name"))
-                .description(rs.getString("film_description"))
-                .releaseDate(rs.getDate("film_release_date").toLocalDate())
-                .duration(rs.getLong("film_duration"))
-                .rate(rs.getInt("film_rate"))
-                .mpa(Mpa.builder().id(rs.getInt("mpa_id"))
-                        .name(rs.getString("mpa_rating")).build())
-                .build();
-    }
-
-    public Integer mapRowToLike(ResultSet rs, Integer rowNum) throws SQLException {
-        log.debug("RowMapper: получен запрос от БД на преобразование в лайк.");
-        return rs.getInt("user_id");
+        jdbcTemplate.update(sql, delta, filmId);
     }
 }
@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.transfer.DataImportedEvent;
+import ru.yandex.practicum.filmorate.util.AdjacencyRows;
+
+import javax.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+@Slf4j
+@Component
+public class LikeGraph {
+    private static final int FETCH_SIZE = 10_000;
+    private static final int LOCK_STRIPES = 256;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock graphLock = new ReentrantReadWriteLock();
+    private final Object[] filmLocks = new Object[LOCK_STRIPES];
+    private volatile AdjacencyRows filmsByUser = new AdjacencyRows();
+    private volatile AdjacencyRows usersByFilm = new AdjacencyRows();
+
+    @Autowired
+    public LikeGraph(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            filmLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    @EventListener(value = DataImportedEvent.class, condition = "#root.event.type == 'likes'")
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuild() {
+        log.debug("LikeGraph: построение графа лайков из БД.");
+        graphLock.writeLock().lock();
+        try {
+            AdjacencyRows.Builder filmsByUserBuilder = new AdjacencyRows.Builder();
+            scan("SELECT user_id, film_id " +
+                    "FROM LIKES " +
+                    "ORDER BY user_id, film_id",
+                    rs -> filmsByUserBuilder.add(rs.getInt("user_id"), rs.getInt("film_id")));
+            AdjacencyRows.Builder usersByFilmBuilder = new AdjacencyRows.Builder();
+            scan("SELECT film_id, user_id " +
+                    "FROM LIKES " +
+                    "ORDER BY film_id, user_id",
+                    rs -> usersByFilmBuilder.add(rs.getInt("film_id"), rs.getInt("user_id")));
+            replace(filmsByUserBuilder.build(), usersByFilmBuilder.build());
+        } finally {
+            graphLock.writeLock().unlock();
+        }
+        log.debug("LikeGraph: в граф загружено лайков: {}.", filmsByUser.edges());
+    }
+
+    public void replace(AdjacencyRows filmsByUser, AdjacencyRows usersByFilm) {
+        graphLock.writeLock().lock();
+        try {
+            this.filmsByUser = filmsByUser;
+            this.usersByFilm = usersByFilm;
+        } finally {
+            graphLock.writeLock().unlock();
+        }
+    }
+
+    public int[] likedFilms(int userId) {
+        return filmsByUser.get(userId);
+    }
+
+    public int likedFilmsCount(int userId) {
+        return filmsByUser.size(userId);
+    }
+
+    public Object likedFilmsVersion(int userId) {
+        return filmsByUser.row(userId);
+    }
+
+    public void forEachLikedFilm(int userId, IntConsumer action) {
+        filmsByUser.forEach(userId, action);
+    }
+
+    public int likersCount(int filmId) {
+        return usersByFilm.size(filmId);
+    }
+
+    public void forEachLiker(int filmId, IntConsumer action) {
+        usersByFilm.forEach(filmId, action);
+    }
+
+    public boolean addLike(int filmId, int userId) {
+        graphLock.readLock().lock();
+        try {
+            synchronized (filmLock(filmId)) {
+                filmsByUser.add(userId, filmId);
+                return usersByFilm.add(filmId, userId);
+            }
+        } finally {
+            graphLock.readLock().unlock();
+        }
+    }
+
+    public boolean removeLike(int filmId, int userId) {
+        graphLock.readLock().lock();
+        try {
+            synchronized (filmLock(filmId)) {
+                filmsByUser.remove(userId, filmId);
+                return usersByFilm.remove(filmId, userId);
+            }
+        } finally {
+            graphLock.readLock().unlock();
+        }
+    }
+
+    public void deleteFilm(int filmId) {
+        graphLock.readLock().lock();
+        try {
+            synchronized (filmLock(filmId)) {
+                for (int userId : usersByFilm.removeRow(filmId)) {
+                    filmsByUser.remove(userId, filmId);
+                }
+            }
+        } finally {
+            graphLock.readLock().unlock();
+        }
+    }
+
+    public void deleteUser(int userId) {
+        graphLock.readLock().lock();
+        try {
+            for (int filmId : filmsByUser.removeRow(userId)) {
+                synchronized (filmLock(filmId)) {
+                    usersByFilm.remove(filmId, userId);
+                }
+            }
+        } finally {
+            graphLock.readLock().unlock();
+        }
+    }
+
+    private Object filmLock(int filmId) {
+        return filmLocks[(filmId ^ (filmId >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private void scan(String sql, RowCallbackHandler rowHandler) {
+        PreparedStatementCreator statementCreator = connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        };
+        jdbcTemplate.query(statementCreator, rowHandler);
+    }
+}
@@ -0,0 +1,387 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.LikeJournalOverflowException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class LikeJournal {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FilmCache filmCache;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final Object lock = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private Map<Integer, Map<Integer, Boolean>> pending = new HashMap<>();
+    private Map<Integer, Map<Integer, Boolean>> inFlight = new HashMap<>();
+    private int pendingSize;
+    private int inFlightSize;
+    private boolean committing;
+    private long commits;
+    private boolean closed;
+    private ScheduledExecutorService flushExecutor;
+    private volatile RejectionHandler rejectionHandler = (filmId, userId, liked) -> {
+    };
+
+    @Autowired
+    public LikeJournal(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, FilmCache filmCache,
+                       @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                       @Value("${filmorate.likes.write-behind.capacity:100000}") int capacity,
+                       @Value("${filmorate.likes.write-behind.batch-size:10000}") int batchSize,
+                       @Value("${filmorate.likes.write-behind.flush-interval-ms:50}") long flushIntervalMillis,
+                       @Value("${filmorate.likes.write-behind.offer-timeout-ms:1000}") long offerTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.filmCache = filmCache;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        log.debug("LikeJournal: включена отложенная запись лайков с интервалом {} мс и ёмкостью {}.",
+                flushIntervalMillis, capacity);
+        flushExecutor = Executors.newSingleThreadScheduledExecutor();
+        flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.debug("LikeJournal: журнал лайков остановлен, все изменения записаны в БД.");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void like(int filmId, int userId) {
+        append(filmId, userId, true);
+    }
+
+    public void dislike(int filmId, int userId) {
+        append(filmId, userId, false);
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return pendingSize + inFlightSize;
+        }
+    }
+
+    public void setRejectionHandler(RejectionHandler rejectionHandler) {
+        this.rejectionHandler = rejectionHandler;
+    }
+
+    public <T> T readConsistent(Supplier<T> read) {
+        if (!enabled) {
+            return read.get();
+        }
+        while (true) {
+            long startCommits;
+            synchronized (lock) {
+                while (committing) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Чтение фильма прервано.", e);
+                    }
+                }
+                startCommits = commits;
+            }
+            T result = read.get();
+            synchronized (lock) {
+                if (!committing && commits == startCommits) {
+                    return result;
+                }
+            }
+            log.debug("LikeJournal: во время чтения зафиксированы лайки из журнала, чтение повторяется.");
+        }
+    }
+
+    public boolean cancelPending(int filmId, int userId, boolean liked) {
+        synchronized (lock) {
+            Map<Integer, Boolean> users = pending.get(filmId);
+            if (users == null || !Boolean.valueOf(liked).equals(users.get(userId))) {
+                return false;
+            }
+            users.remove(userId);
+            pendingSize--;
+            if (users.isEmpty()) {
+                pending.remove(filmId);
+            }
+            lock.notifyAll();
+            return true;
+        }
+    }
+
+    public void applyPending(Film film) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            apply(film, inFlight.get(film.getId()));
+            apply(film, pending.get(film.getId()));
+        }
+    }
+
+    public void flushIfClosed() {
+        boolean stopped;
+        synchronized (lock) {
+            stopped = closed;
+        }
+        if (stopped) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        synchronized (this) {
+            flushRequested.set(false);
+            while (true) {
+                List<Object[]> changes = new ArrayList<>();
+                synchronized (lock) {
+                    if (pendingSize == 0) {
+                        return;
+                    }
+                    for (Map.Entry<Integer, Map<Integer, Boolean>> film : pending.entrySet()) {
+                        for (Map.Entry<Integer, Boolean> user : film.getValue().entrySet()) {
+                            changes.add(new Object[]{film.getKey(), user.getKey(), user.getValue()});
+                        }
+                    }
+                    inFlight = pending;
+                    inFlightSize = pendingSize;
+                    pending = new HashMap<>();
+                    pendingSize = 0;
+                }
+                List<Object[]> rejected = write(changes);
+                synchronized (lock) {
+                    inFlight = new HashMap<>();
+                    inFlightSize = 0;
+                    lock.notifyAll();
+                }
+                for (Object[] change : rejected) {
+                    rejectionHandler.rejected((Integer) change[0], (Integer) change[1], (Boolean) change[2]);
+                }
+                for (Object[] change : changes) {
+                    filmCache.invalidate((Integer) change[0]);
+                }
+            }
+        }
+    }
+
+    private void append(int filmId, int userId, boolean liked) {
+        int size;
+        boolean stopped;
+        synchronized (lock) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+            while (!closed && pendingSize + inFlightSize >= capacity) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    log.warn("LikeJournal: журнал лайков переполнен, в очереди {} изменений.",
+                            pendingSize + inFlightSize);
+                    throw new LikeJournalOverflowException(
+                            "Слишком много необработанных лайков, повторите запрос позже.");
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new LikeJournalOverflowException("Запись лайка прервана.");
+                }
+            }
+            Map<Integer, Boolean> users = pending.computeIfAbsent(filmId, id -> new HashMap<>());
+            Boolean previous = users.get(userId);
+            if (previous != null && previous != liked) {
+                users.remove(userId);
+                pendingSize--;
+                if (users.isEmpty()) {
+                    pending.remove(filmId);
+                }
+            } else if (previous == null) {
+                users.put(userId, liked);
+                pendingSize++;
+            }
+            size = pendingSize;
+            stopped = closed;
+        }
+        if (!stopped && size >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    private List<Object[]> write(List<Object[]> changes) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (Object[] change : changes) {
+            if ((Boolean) change[2]) {
+                inserts.add(new Object[]{change[0], change[1], change[0], change[1]});
+            } else {
+                deletes.add(new Object[]{change[0], change[1]});
+            }
+        }
+        log.debug("LikeJournal: запись в БД {} лайков и {} дизлайков.", inserts.size(), deletes.size());
+        String sqlInsert = "INSERT INTO LIKES (film_id, user_id) " +
+                "SELECT ?, ? " +
+                "WHERE NOT EXISTS (SELECT 1 FROM LIKES WHERE film_id = ? AND user_id = ?)";
+        String sqlDelete = "DELETE FROM LIKES WHERE film_id = ? AND user_id = ?";
+        String sqlRate = "UPDATE FILMS " +
+                "SET film_rate = COALESCE(film_rate, 0) + ? " +
+                "WHERE film_id = ?";
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<Integer, Integer> deltas = new HashMap<>();
+                if (!deletes.isEmpty()) {
+                    addDeltas(deltas, deletes, jdbcTemplate.batchUpdate(sqlDelete, deletes), -1);
+                }
+                if (!inserts.isEmpty()) {
+                    addDeltas(deltas, inserts, jdbcTemplate.batchUpdate(sqlInsert, inserts), 1);
+                }
+                List<Object[]> rates = new ArrayList<>();
+                deltas.forEach((filmId, delta) -> {
+                    if (delta != 0) {
+                        rates.add(new Object[]{delta, filmId});
+                    }
+                });
+                if (!rates.isEmpty()) {
+                    jdbcTemplate.batchUpdate(sqlRate, rates);
+                }
+                beginCommit();
+            });
+            endCommit(changes);
+            return Collections.emptyList();
+        } catch (RuntimeException e) {
+            endCommit(Collections.emptyList());
+            log.warn("LikeJournal: не удалось записать пакет лайков ({}), изменения будут записаны по одному.",
+                    e.getMessage());
+            return writeOneByOne(changes, sqlInsert, sqlDelete, sqlRate);
+        }
+    }
+
+    private static void addDeltas(Map<Integer, Integer> deltas, List<Object[]> rows, int[] updated, int delta) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (updated[i] > 0) {
+                deltas.merge((Integer) rows.get(i)[0], delta, Integer::sum);
+            }
+        }
+    }
+
+    private List<Object[]> writeOneByOne(List<Object[]> changes, String sqlInsert, String sqlDelete,
+                                         String sqlRate) {
+        List<Object[]> rejected = new ArrayList<>();
+        for (Object[] change : changes) {
+            Integer filmId = (Integer) change[0];
+            Integer userId = (Integer) change[1];
+            boolean liked = (Boolean) change[2];
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    int updated = liked
+                            ? jdbcTemplate.update(sqlInsert, filmId, userId, filmId, userId)
+                            : jdbcTemplate.update(sqlDelete, filmId, userId);
+                    if (updated > 0) {
+                        jdbcTemplate.update(sqlRate, liked ? 1 : -1, filmId);
+                    }
+                    beginCommit();
+                });
+                endCommit(Collections.singletonList(change));
+            } catch (RuntimeException e) {
+                endCommit(Collections.emptyList());
+                log.warn("LikeJournal: изменение лайка пользователя с id: {} фильму с id: {} отклонено БД " +
+                        "и будет отменено в памяти: {}.", userId, filmId, e.getMessage());
+                rejected.add(change);
+            }
+        }
+        return rejected;
+    }
+
+    private void beginCommit() {
+        synchronized (lock) {
+            committing = true;
+        }
+    }
+
+    private void endCommit(List<Object[]> committed) {
+        synchronized (lock) {
+            committing = false;
+            commits++;
+            for (Object[] change : committed) {
+                Map<Integer, Boolean> users = inFlight.get((Integer) change[0]);
+                if (users != null && users.remove((Integer) change[1]) != null) {
+                    inFlightSize--;
+                    if (users.isEmpty()) {
+                        inFlight.remove((Integer) change[0]);
+                    }
+                }
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private static void apply(Film film, Map<Integer, Boolean> users) {
+        if (users == null) {
+            return;
+        }
+        int delta = 0;
+        for (Map.Entry<Integer, Boolean> user : users.entrySet()) {
+            if (user.getValue()) {
+                film.getLikes().add(user.getKey());
+                delta++;
+            } else {
+                film.getLikes().remove(user.getKey());
+                delta--;
+            }
+        }
+        film.setRate((film.getRate() == null ? 0 : film.getRate()) + delta);
+    }
+
+    public interface RejectionHandler {
+        void rejected(int filmId, int userId, boolean liked);
+    }
+}
@@ -0,0 +1,252 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.transfer.DataImportedEvent;
+
+import javax.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+public class PopularityIndex {
+    private static final int FETCH_SIZE = 10_000;
+    private static final long[] NO_FACETS = new long[0];
+    private static final long GENRE = 1;
+    private static final long MPA = 2;
+    private static final long YEAR = 3;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentSkipListSet<Long> ranking = new ConcurrentSkipListSet<>();
+    private final ConcurrentMap<Integer, Integer> rates = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, long[]> facetsByFilm = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Facet> facets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PopularityIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    @EventListener(value = DataImportedEvent.class, condition = "#root.event.type matches 'films|genres|likes'")
+    public synchronized void rebuild() {
+        log.debug("PopularityIndex: построение индекса популярности фильмов из БД.");
+        String sql = "SELECT f.film_id, f.film_rate, f.mpa_id, f.film_release_date, fg.genre_id " +
+                "FROM FILMS AS f " +
+                "LEFT JOIN FILM_GENRES AS fg ON f.film_id = fg.film_id " +
+                "ORDER BY f.film_id";
+        ranking.clear();
+        rates.clear();
+        facetsByFilm.clear();
+        facets.clear();
+        PreparedStatementCreator statementCreator = connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        };
+        int[] current = {0, 0, 0, 0};
+        List<Integer> genreIds = new ArrayList<>();
+        RowCallbackHandler rowHandler = rs -> {
+            int filmId = rs.getInt("film_id");
+            if (filmId != current[0]) {
+                if (current[0] != 0) {
+                    put(current[0], current[1], facets(genreIds, current[2], current[3]));
+                }
+                current[0] = filmId;
+                current[1] = rs.getInt("film_rate");
+                current[2] = rs.getInt("mpa_id");
+                current[3] = rs.getDate("film_release_date").toLocalDate().getYear();
+                genreIds.clear();
+            }
+            int genreId = rs.getInt("genre_id");
+            if (!rs.wasNull()) {
+                genreIds.add(genreId);
+            }
+        };
+        jdbcTemplate.query(statementCreator, rowHandler);
+        if (current[0] != 0) {
+            put(current[0], current[1], facets(genreIds, current[2], current[3]));
+        }
+        log.debug("PopularityIndex: в индекс популярности загружено фильмов: {}, фасетов: {}.",
+                rates.size(), facets.size());
+    }
+
+    public void put(Film film) {
+        List<Integer> genreIds = new ArrayList<>();
+        for (Genre genre : film.getGenres()) {
+            genreIds.add(genre.getId());
+        }
+        put(film.getId(), film.getRate(), facets(genreIds, film.getMpa().getId(), film.getReleaseDate().getYear()));
+    }
+
+    public void put(Integer filmId, Integer rate) {
+        put(filmId, rate, null);
+    }
+
+    public void adjust(Integer filmId, int delta) {
+        rates.computeIfPresent(filmId, (id, oldRate) -> {
+            int newRate = oldRate + delta;
+            ranking.add(key(newRate, id));
+            ranking.remove(key(oldRate, id));
+            for (long facet : facetsByFilm.getOrDefault(id, NO_FACETS)) {
+                Facet current = facets.get(facet);
+                if (current != null) {
+                    current.ranking.add(key(newRate, id));
+                    current.ranking.remove(key(oldRate, id));
+                }
+            }
+            return newRate;
+        });
+    }
+
+    public void remove(Integer filmId) {
+        rates.computeIfPresent(filmId, (id, oldRate) -> {
+            ranking.remove(key(oldRate, id));
+            removeFacets(id, oldRate, facetsByFilm.remove(id));
+            return null;
+        });
+    }
+
+    public List<Integer> top(int count) {
+        return top(count, ranking, NO_FACETS);
+    }
+
+    public List<Integer> top(int count, Integer genreId, Integer mpaId, Integer year) {
+        List<Long> required = new ArrayList<>();
+        if (genreId != null) {
+            required.add(facet(GENRE, genreId));
+        }
+        if (mpaId != null) {
+            required.add(facet(MPA, mpaId));
+        }
+        if (year != null) {
+            required.add(facet(YEAR, year));
+        }
+        if (required.isEmpty()) {
+            return top(count);
+        }
+        Facet smallest = null;
+        long[] filter = new long[required.size()];
+        for (int i = 0; i < filter.length; i++) {
+            filter[i] = required.get(i);
+            Facet current = facets.get(filter[i]);
+            if (current == null) {
+                return new ArrayList<>();
+            }
+            if (smallest == null || current.size.get() < smallest.size.get()) {
+                smallest = current;
+            }
+        }
+        Arrays.sort(filter);
+        return top(count, smallest.ranking, filter);
+    }
+
+    public int size() {
+        return rates.size();
+    }
+
+    private void put(Integer filmId, Integer rate, long[] filmFacets) {
+        int newRate = rate == null ? 0 : rate;
+        rates.compute(filmId, (id, oldRate) -> {
+            long[] oldFacets = facetsByFilm.getOrDefault(id, NO_FACETS);
+            long[] newFacets = filmFacets == null ? oldFacets : filmFacets;
+            if (oldRate != null) {
+                ranking.remove(key(oldRate, id));
+                removeFacets(id, oldRate, oldFacets);
+            }
+            ranking.add(key(newRate, id));
+            for (long facet : newFacets) {
+                Facet current = facets.computeIfAbsent(facet, key -> new Facet());
+                current.ranking.add(key(newRate, id));
+                current.size.incrementAndGet();
+            }
+            facetsByFilm.put(id, newFacets);
+            return newRate;
+        });
+    }
+
+    private void removeFacets(int filmId, int rate, long[] filmFacets) {
+        if (filmFacets == null) {
+            return;
+        }
+        for (long facet : filmFacets) {
+            Facet current = facets.get(facet);
+            if (current != null) {
+                current.ranking.remove(key(rate, filmId));
+                current.size.decrementAndGet();
+            }
+        }
+    }
+
+    private List<Integer> top(int count, NavigableSet<Long> source, long[] filter) {
+        List<Integer> result = new ArrayList<>(Math.min(count, rates.size()));
+        Set<Integer> seen = new HashSet<>();
+        Iterator<Long> iterator = source.iterator();
+        while (result.size() < count && iterator.hasNext()) {
+            Integer filmId = filmId(iterator.next());
+            if (matches(filmId, filter) && rates.containsKey(filmId) && seen.add(filmId)) {
+                result.add(filmId);
+            }
+        }
+        return result;
+    }
+
+    private boolean matches(Integer filmId, long[] filter) {
+        if (filter.length == 0) {
+            return true;
+        }
+        long[] filmFacets = facetsByFilm.getOrDefault(filmId, NO_FACETS);
+        for (long facet : filter) {
+            if (Arrays.binarySearch(filmFacets, facet) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] facets(List<Integer> genreIds, int mpaId, int year) {
+        long[] filmFacets = new long[genreIds.size() + 2];
+        int count = 0;
+        for (Integer genreId : genreIds) {
+            filmFacets[count++] = facet(GENRE, genreId);
+        }
+        filmFacets[count++] = facet(MPA, mpaId);
+        filmFacets[count] = facet(YEAR, year);
+        Arrays.sort(filmFacets);
+        return filmFacets;
+    }
+
+    private static long facet(long type, int value) {
+        return (type << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    private static long key(int rate, int filmId) {
+        return ((long) -rate << 32) | (filmId & 0xFFFFFFFFL);
+    }
+
+    private static Integer filmId(long key) {
+        return (int) key;
+    }
+
+    private static final class Facet {
+        private final ConcurrentSkipListSet<Long> ranking = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger();
+    }
+}
@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import javax.annotation.PostConstruct;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Component
+public class ReferenceDataRegistry {
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Genre[] genres = new Genre[0];
+    private volatile Mpa[] mpas = new Mpa[0];
+
+    @Autowired
+    public ReferenceDataRegistry(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public synchronized void refresh() {
+        log.debug("ReferenceDataRegistry: загрузка справочников жанров и рейтингов из БД.");
+        String sqlGenres = "SELECT genre_id, genre " +
+                "FROM GENRES";
+        List<Genre> loadedGenres = jdbcTemplate.query(sqlGenres, this::mapRowToGenre);
+        Genre[] genresById = new Genre[maxGenreId(loadedGenres) + 1];
+        for (Genre genre : loadedGenres) {
+            genresById[genre.getId()] = genre;
+        }
+
+        String sqlMpas = "SELECT mpa_id, mpa_rating " +
+                "FROM MPA";
+        List<Mpa> loadedMpas = jdbcTemplate.query(sqlMpas, this::mapRowToMpa);
+        Mpa[] mpasById = new Mpa[maxMpaId(loadedMpas) + 1];
+        for (Mpa mpa : loadedMpas) {
+            mpasById[mpa.getId()] = mpa;
+        }
+
+        genres = genresById;
+        mpas = mpasById;
+        log.debug("ReferenceDataRegistry: загружено жанров: {}, рейтингов: {}.", loadedGenres.size(), loadedMpas.size());
+    }
+
+    public List<Genre> findAllGenres() {
+        List<Genre> result = new ArrayList<>();
+        for (Genre genre : genres) {
+            if (genre != null) {
+                result.add(genre);
+            }
+        }
+        return result;
+    }
+
+    public List<Mpa> findAllMpas() {
+        List<Mpa> result = new ArrayList<>();
+        for (Mpa mpa : mpas) {
+            if (mpa != null) {
+                result.add(mpa);
+            }
+        }
+        return result;
+    }
+
+    public boolean containsGenre(Integer genreId) {
+        return lookupGenre(genreId) != null;
+    }
+
+    public boolean containsMpa(Integer mpaId) {
+        return lookupMpa(mpaId) != null;
+    }
+
+    public Genre getGenre(Integer genreId) {
+        Genre genre = lookupGenre(genreId);
+        if (genre == null) {
+            log.debug("ReferenceDataRegistry: жанр с id: {} не найден в памяти, справочник перечитывается.", genreId);
+            refresh();
+            genre = lookupGenre(genreId);
+        }
+        return genre;
+    }
+
+    public Mpa getMpa(Integer mpaId) {
+        Mpa mpa = lookupMpa(mpaId);
+        if (mpa == null) {
+            log.debug("ReferenceDataRegistry: рейтинг с id: {} не найден в памяти, справочник перечитывается.", mpaId);
+            refresh();
+            mpa = lookupMpa(mpaId);
+        }
+        return mpa;
+    }
+
+    private Genre lookupGenre(Integer genreId) {
+        Genre[] current = genres;
+        if (genreId == null || genreId < 0 || genreId >= current.length) {
+            return null;
+        }
+        return current[genreId];
+    }
+
+    private Mpa lookupMpa(Integer mpaId) {
+        Mpa[] current = mpas;
+        if (mpaId == null || mpaId < 0 || mpaId >= current.length) {
+            return null;
+        }
+        return current[mpaId];
+    }
+
+    private int maxGenreId(List<Genre> loadedGenres) {
+        int max = 0;
+        for (Genre genre : loadedGenres) {
+            max = Math.max(max, genre.getId());
+        }
+        return max;
+    }
+
+    private int maxMpaId(List<Mpa> loadedMpas) {
+        int max = 0;
+        for (Mpa mpa : loadedMpas) {
+            max = Math.max(max, mpa.getId());
+        }
+        return max;
+    }
+
+    public Genre mapRowToGenre(ResultSet rs, Integer rowNum) throws SQLException {
+        log.debug("RowMapper: получен запрос от БД на преобразование в Жанр.");
+        return Genre.builder()
+                .id(rs.getInt("genre_id"))
+                .name(rs.getString("genre"))
+                .build();
+    }
+
+    public Mpa mapRowToMpa(ResultSet rs, Integer rowNum) throws SQLException {
+        log.debug("RowMapper: получен запрос от БД на преобразование в рейтинг Mpa.");
+        return Mpa.builder()
+                .id(rs.getInt("mpa_id"))
+                .name(rs.getString("mpa_rating"))
+                .build();
+    }
+}
@@ -0,0 +1,369 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.transfer.DataImportedEvent;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class SimilarFilmsIndex {
+    private static final int HASHES = 64;
+    private static final int BANDS = 32;
+    private static final int ROWS_PER_BAND = HASHES / BANDS;
+    private static final long[] SEEDS = seeds();
+    private static final long LIKERS_HASH_SEED = 0x2545F4914F6CDD1DL;
+    private static final int LOCK_STRIPES = 256;
+    private final JdbcTemplate jdbcTemplate;
+    private final LikeGraph likeGraph;
+    private final long flushIntervalMillis;
+    private final ConcurrentMap<Integer, int[]> signatures = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Long> likersHashes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<Integer>> buckets = new ConcurrentHashMap<>();
+    private final Set<Integer> dirtyFilms = ConcurrentHashMap.newKeySet();
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private final Object[] filmLocks = new Object[LOCK_STRIPES];
+    private ScheduledExecutorService flushExecutor;
+
+    @Autowired
+    public SimilarFilmsIndex(JdbcTemplate jdbcTemplate, LikeGraph likeGraph,
+                             @Value("${filmorate.similar.flush-interval-ms:10000}") long flushIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.likeGraph = likeGraph;
+        this.flushIntervalMillis = flushIntervalMillis;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            filmLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        rebuild();
+        flushExecutor = Executors.newSingleThreadScheduledExecutor();
+        flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener(value = DataImportedEvent.class, condition = "#root.event.type == 'likes'")
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void rebuild() {
+        log.debug("SimilarFilmsIndex: загрузка сигнатур фильмов из БД.");
+        indexLock.writeLock().lock();
+        try {
+            signatures.clear();
+            likersHashes.clear();
+            buckets.clear();
+            String sql = "SELECT film_id, likes_count, likers_hash, signature " +
+                    "FROM FILM_SIGNATURES";
+            jdbcTemplate.query(sql, rs -> {
+                int filmId = rs.getInt("film_id");
+                long likersHash = likersHash(filmId);
+                if (rs.getInt("likes_count") == likeGraph.likersCount(filmId)
+                        && rs.getLong("likers_hash") == likersHash) {
+                    index(filmId, fromBytes(rs.getBytes("signature")));
+                    likersHashes.put(filmId, likersHash);
+                }
+            });
+            String sqlFilms = "SELECT film_id " +
+                    "FROM FILMS";
+            jdbcTemplate.query(sqlFilms, rs -> {
+                int filmId = rs.getInt("film_id");
+                if (!signatures.containsKey(filmId) && likeGraph.likersCount(filmId) > 0) {
+                    recompute(filmId);
+                }
+            });
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        log.debug("SimilarFilmsIndex: в индексе {} фильмов, пересчитано {}.", signatures.size(), dirtyFilms.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+        }
+        flush();
+    }
+
+    public void addLike(int filmId, int userId) {
+        indexLock.readLock().lock();
+        try {
+            synchronized (filmLock(filmId)) {
+                int[] current = signatures.get(filmId);
+                int[] updated = current == null ? emptySignature() : current.clone();
+                boolean changed = false;
+                for (int i = 0; i < HASHES; i++) {
+                    int hash = hash(i, userId);
+                    if (hash < updated[i]) {
+                        updated[i] = hash;
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    replace(filmId, current, updated);
+                }
+                likersHashes.merge(filmId, likerHash(userId), Long::sum);
+                dirtyFilms.add(filmId);
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    public void removeLike(int filmId, int userId) {
+        indexLock.readLock().lock();
+        try {
+            synchronized (filmLock(filmId)) {
+                int[] current = signatures.get(filmId);
+                if (current == null) {
+                    return;
+                }
+                for (int i = 0; i < HASHES; i++) {
+                    if (hash(i, userId) == current[i]) {
+                        recompute(filmId);
+                        return;
+                    }
+                }
+                likersHashes.merge(filmId, -likerHash(userId), Long::sum);
+                dirtyFilms.add(filmId);
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    public void deleteFilm(int filmId) {
+        indexLock.readLock().lock();
+        try {
+            synchronized (filmLock(filmId)) {
+                int[] current = signatures.remove(filmId);
+                if (current != null) {
+                    unindex(filmId, current);
+                }
+                likersHashes.remove(filmId);
+                dirtyFilms.remove(filmId);
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    public List<Integer> similar(int filmId, int limit) {
+        int[] signature = signatures.get(filmId);
+        if (signature == null) {
+            return new ArrayList<>();
+        }
+        Set<Integer> seen = new HashSet<>();
+        PriorityQueue<Long> top = new PriorityQueue<>(limit + 1);
+        for (int band = 0; band < BANDS; band++) {
+            Set<Integer> bucket = buckets.get(bucketKey(band, signature));
+            if (bucket == null) {
+                continue;
+            }
+            for (Integer candidateId : bucket) {
+                if (candidateId == filmId || !seen.add(candidateId)) {
+                    continue;
+                }
+                int[] candidate = signatures.get(candidateId);
+                if (candidate == null) {
+                    continue;
+                }
+                top.add(((long) agreement(signature, candidate) << 32) | (~candidateId & 0xFFFFFFFFL));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+        Integer[] result = new Integer[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = ~top.poll().intValue();
+        }
+        return Arrays.asList(result);
+    }
+
+    public double estimateJaccard(int filmId, int otherId) {
+        int[] first = signatures.get(filmId);
+        int[] second = signatures.get(otherId);
+        if (first == null || second == null) {
+            return 0;
+        }
+        return (double) agreement(first, second) / HASHES;
+    }
+
+    public void flush() {
+        if (dirtyFilms.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        indexLock.readLock().lock();
+        try {
+            for (Integer filmId : new ArrayList<>(dirtyFilms)) {
+                synchronized (filmLock(filmId)) {
+                    dirtyFilms.remove(filmId);
+                    int[] signature = signatures.get(filmId);
+                    Long likersHash = likersHashes.get(filmId);
+                    if (signature != null && likersHash != null) {
+                        batch.add(new Object[]{filmId, likeGraph.likersCount(filmId), likersHash,
+                                toBytes(signature)});
+                    }
+                }
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        log.debug("SimilarFilmsIndex: сохранение {} сигнатур фильмов в БД.", batch.size());
+        try {
+            String sql = "MERGE INTO FILM_SIGNATURES (film_id, likes_count, likers_hash, signature) " +
+                    "KEY (film_id) " +
+                    "VALUES (?, ?, ?, ?)";
+            jdbcTemplate.batchUpdate(sql, batch);
+        } catch (RuntimeException e) {
+            log.warn("SimilarFilmsIndex: не удалось сохранить сигнатуры фильмов: {}.", e.getMessage());
+            for (Object[] row : batch) {
+                dirtyFilms.add((Integer) row[0]);
+            }
+        }
+    }
+
+    private void recompute(int filmId) {
+        int[] updated = emptySignature();
+        likeGraph.forEachLiker(filmId, userId -> {
+            for (int i = 0; i < HASHES; i++) {
+                updated[i] = Math.min(updated[i], hash(i, userId));
+            }
+        });
+        int[] current = signatures.get(filmId);
+        if (likeGraph.likersCount(filmId) == 0) {
+            if (current != null) {
+                signatures.remove(filmId);
+                unindex(filmId, current);
+            }
+            likersHashes.remove(filmId);
+        } else {
+            replace(filmId, current, updated);
+            likersHashes.put(filmId, likersHash(filmId));
+        }
+        dirtyFilms.add(filmId);
+    }
+
+    private long likersHash(int filmId) {
+        long[] hash = new long[1];
+        likeGraph.forEachLiker(filmId, userId -> hash[0] += likerHash(userId));
+        return hash[0];
+    }
+
+    private Object filmLock(int filmId) {
+        return filmLocks[(filmId ^ (filmId >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private void replace(int filmId, int[] current, int[] updated) {
+        if (current != null) {
+            unindex(filmId, current);
+        }
+        index(filmId, updated);
+    }
+
+    private void index(int filmId, int[] signature) {
+        signatures.put(filmId, signature);
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bucketKey(band, signature), key -> ConcurrentHashMap.newKeySet()).add(filmId);
+        }
+    }
+
+    private void unindex(int filmId, int[] signature) {
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfPresent(bucketKey(band, signature), (key, bucket) -> {
+                bucket.remove(filmId);
+                return bucket.isEmpty() ? null : bucket;
+            });
+        }
+    }
+
+    private static int agreement(int[] first, int[] second) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (first[i] == second[i]) {
+                equal++;
+            }
+        }
+        return equal;
+    }
+
+    private static long bucketKey(int band, int[] signature) {
+        long key = band;
+        for (int i = band * ROWS_PER_BAND; i < (band + 1) * ROWS_PER_BAND; i++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return mix(key);
+    }
+
+    private static int hash(int function, int userId) {
+        return (int) (mix(SEEDS[function] ^ userId) >>> 33);
+    }
+
+    private static long likerHash(int userId) {
+        return mix(LIKERS_HASH_SEED ^ userId);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static long[] seeds() {
+        long[] seeds = new long[HASHES];
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < HASHES; i++) {
+            seed = mix(seed + i);
+            seeds[i] = seed;
+        }
+        return seeds;
+    }
+
+    private static int[] emptySignature() {
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        return signature;
+    }
+
+    private static byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(HASHES * Integer.BYTES);
+        for (int value : signature) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    private static int[] fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int[] signature = new int[HASHES];
+        for (int i = 0; i < HASHES; i++) {
+            signature[i] = buffer.getInt();
+        }
+        return signature;
+    }
+}
@@ -3,7 +3,17 @@ package ru.yandex.practicum.filmorate.storage.filmImpl;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.Storage;
 
+import java.util.List;
+
 public interface FilmStorage extends Storage<Film> {
 
+    List<Film> getByIds(List<Integer> filmIds);
+
+    List<Film> search(String query, Integer limit);
+
     void setGenre(Film film);
+
+    void setGenres(List<Film> films);
+
+    void setLikes(List<Film> films);
 }
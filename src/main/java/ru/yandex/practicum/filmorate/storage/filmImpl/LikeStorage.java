@@ -10,7 +10,13 @@ public interface LikeStorage {
 
     Film dislikeFilm(Integer filmId, Integer userId);
 
-    List<Film> getMostPopularFilms(Integer count);
+    boolean addLike(Integer filmId, Integer userId);
 
-    void setLike(Film film);
+    boolean removeLike(Integer filmId, Integer userId);
+
+    List<Film> getMostPopularFilms(Integer count, Integer genreId, Integer mpaId, Integer year);
+
+    List<Film> getSimilarFilms(Integer filmId, Integer count);
+
+    List<Film> getRecommendedFilms(Integer userId, Integer count);
 }
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage.transfer;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+@Getter
+public class DataImportedEvent extends ApplicationEvent {
+    private final String type;
+
+    public DataImportedEvent(Object source, String type) {
+        super(source);
+        this.type = type;
+    }
+}
@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.storage.transfer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.storage.transferImpl.ExportStorage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+@Slf4j
+@Repository("ExportDbStorage")
+public class ExportDbStorage implements ExportStorage {
+    private static final int FETCH_SIZE = 10_000;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ExportDbStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public long exportUsers(JsonGenerator generator) {
+        log.debug("ExportDbStorage: выгрузка пользователей из БД.");
+        String sql = "SELECT user_id, user_email, user_login, user_name, user_birthday " +
+                "FROM USERS " +
+                "ORDER BY user_id";
+        return export(sql, generator, rs -> {
+            generator.writeNumberField("id", rs.getInt("user_id"));
+            generator.writeStringField("email", rs.getString("user_email"));
+            generator.writeStringField("login", rs.getString("user_login"));
+            generator.writeStringField("name", rs.getString("user_name"));
+            generator.writeStringField("birthday", rs.getDate("user_birthday").toLocalDate().toString());
+        });
+    }
+
+    @Override
+    public long exportFilms(JsonGenerator generator) {
+        log.debug("ExportDbStorage: выгрузка фильмов из БД.");
+        String sql = "SELECT film_id, film_name, film_description, film_release_date, film_duration, " +
+                "film_rate, mpa_id " +
+                "FROM FILMS " +
+                "ORDER BY film_id";
+        return export(sql, generator, rs -> {
+            generator.writeNumberField("id", rs.getInt("film_id"));
+            generator.writeStringField("name", rs.getString("film_name"));
+            generator.writeStringField("description", rs.getString("film_description"));
+            generator.writeStringField("releaseDate", rs.getDate("film_release_date").toLocalDate().toString());
+            generator.writeNumberField("duration", rs.getLong("film_duration"));
+            int rate = rs.getInt("film_rate");
+            if (rs.wasNull()) {
+                generator.writeNullField("rate");
+            } else {
+                generator.writeNumberField("rate", rate);
+            }
+            generator.writeObjectFieldStart("mpa");
+            generator.writeNumberField("id", rs.getInt("mpa_id"));
+            generator.writeEndObject();
+        });
+    }
+
+    @Override
+    public long exportFilmGenres(JsonGenerator generator) {
+        log.debug("ExportDbStorage: выгрузка жанров фильмов из БД.");
+        String sql = "SELECT film_id, genre_id " +
+                "FROM FILM_GENRES " +
+                "ORDER BY film_id, genre_id";
+        return export(sql, generator, rs -> {
+            generator.writeNumberField("filmId", rs.getInt("film_id"));
+            generator.writeNumberField("genreId", rs.getInt("genre_id"));
+        });
+    }
+
+    @Override
+    public long exportLikes(JsonGenerator generator) {
+        log.debug("ExportDbStorage: выгрузка лайков из БД.");
+        String sql = "SELECT film_id, user_id " +
+                "FROM LIKES " +
+                "ORDER BY film_id, user_id";
+        return export(sql, generator, rs -> {
+            generator.writeNumberField("filmId", rs.getInt("film_id"));
+            generator.writeNumberField("userId", rs.getInt("user_id"));
+        });
+    }
+
+    @Override
+    public long exportFriendships(JsonGenerator generator) {
+        log.debug("ExportDbStorage: выгрузка связей дружбы из БД.");
+        String sql = "SELECT user_id, friend_id " +
+                "FROM FRIENDS " +
+                "ORDER BY user_id, friend_id";
+        return export(sql, generator, rs -> {
+            generator.writeNumberField("userId", rs.getInt("user_id"));
+            generator.writeNumberField("friendId", rs.getInt("friend_id"));
+        });
+    }
+
+    private long export(String sql, JsonGenerator generator, RowWriter rowWriter) {
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try (Statement session = connection.createStatement()) {
+                session.execute("SET LAZY_QUERY_EXECUTION TRUE");
+            }
+            try (PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(FETCH_SIZE);
+                long count = 0;
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        generator.writeStartObject();
+                        rowWriter.write(rs);
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
+                        count++;
+                    }
+                }
+                generator.flush();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                try (Statement session = connection.createStatement()) {
+                    session.execute("SET LAZY_QUERY_EXECUTION FALSE");
+                }
+            }
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+}
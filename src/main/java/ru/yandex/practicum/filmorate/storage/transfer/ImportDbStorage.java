@@ -0,0 +1,257 @@
+package ru.yandex.practicum.filmorate.storage.transfer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmGenre;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.IdentityAllocator;
+import ru.yandex.practicum.filmorate.storage.SqlUtils;
+import ru.yandex.practicum.filmorate.storage.transferImpl.ImportStorage;
+import ru.yandex.practicum.filmorate.util.IntHashSet;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+@Slf4j
+@Repository("ImportDbStorage")
+public class ImportDbStorage implements ImportStorage {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IdentityAllocator identityAllocator;
+
+    @Autowired
+    public ImportDbStorage(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           IdentityAllocator identityAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.identityAllocator = identityAllocator;
+    }
+
+    @Override
+    public void importUsers(List<User> users) {
+        log.debug("ImportDbStorage: пакетная запись {} пользователей в БД.", users.size());
+        List<User> withIds = new ArrayList<>();
+        List<User> withoutIds = new ArrayList<>();
+        for (User user : users) {
+            (user.getId() == null ? withoutIds : withIds).add(user);
+        }
+        advancePastExplicitIds("USERS", "user_id", withIds, User::getId);
+        String columns = "user_email, user_name, user_login, user_birthday";
+        RowSetter<User> setter = (statement, user, index) -> {
+            statement.setString(index, user.getEmail());
+            statement.setString(index + 1, user.getName());
+            statement.setString(index + 2, user.getLogin());
+            statement.setDate(index + 3, Date.valueOf(user.getBirthday()));
+        };
+        transactionTemplate.executeWithoutResult(status -> {
+            insertWithIds("USERS", "user_id", columns, 4, withIds, User::getId, setter);
+            insertWithGeneratedIds("USERS", "user_id", columns, 4, withoutIds, User::setId, setter);
+        });
+    }
+
+    @Override
+    public void importFilms(List<Film> films) {
+        log.debug("ImportDbStorage: пакетная запись {} фильмов в БД.", films.size());
+        List<Film> withIds = new ArrayList<>();
+        List<Film> withoutIds = new ArrayList<>();
+        for (Film film : films) {
+            (film.getId() == null ? withoutIds : withIds).add(film);
+        }
+        advancePastExplicitIds("FILMS", "film_id", withIds, Film::getId);
+        String columns = "film_name, film_description, film_release_date, film_duration, film_rate, mpa_id";
+        RowSetter<Film> setter = (statement, film, index) -> {
+            statement.setString(index, film.getName());
+            statement.setString(index + 1, film.getDescription());
+            statement.setDate(index + 2, Date.valueOf(film.getReleaseDate()));
+            statement.setLong(index + 3, film.getDuration());
+            if (film.getRate() == null) {
+                statement.setNull(index + 4, Types.INTEGER);
+            } else {
+                statement.setInt(index + 4, film.getRate());
+            }
+            statement.setInt(index + 5, film.getMpa().getId());
+        };
+        String sqlGenres = "INSERT INTO FILM_GENRES (film_id, genre_id) " +
+                "VALUES (?, ?)";
+        transactionTemplate.executeWithoutResult(status -> {
+            insertWithIds("FILMS", "film_id", columns, 6, withIds, Film::getId, setter);
+            insertWithGeneratedIds("FILMS", "film_id", columns, 6, withoutIds, Film::setId, setter);
+            List<Object[]> genres = new ArrayList<>();
+            for (Film film : films) {
+                for (Genre genre : film.getGenres()) {
+                    genres.add(new Object[]{film.getId(), genre.getId()});
+                }
+            }
+            if (!genres.isEmpty()) {
+                jdbcTemplate.batchUpdate(sqlGenres, genres);
+            }
+        });
+    }
+
+    @Override
+    public void importFilmGenres(List<FilmGenre> filmGenres) {
+        log.debug("ImportDbStorage: пакетная запись {} жанров фильмов в БД.", filmGenres.size());
+        String sql = "MERGE INTO FILM_GENRES (film_id, genre_id) " +
+                "KEY (film_id, genre_id) " +
+                "VALUES (?, ?)";
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql,
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        statement.setInt(1, filmGenres.get(i).getFilmId());
+                        statement.setInt(2, filmGenres.get(i).getGenreId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return filmGenres.size();
+                    }
+                }));
+    }
+
+    @Override
+    public void importLikes(List<Like> likes, boolean updateRates) {
+        log.debug("ImportDbStorage: пакетная запись {} лайков в БД.", likes.size());
+        String sqlLikes = "INSERT INTO LIKES (film_id, user_id) " +
+                "VALUES (?, ?)";
+        IntHashSet likedFilms = new IntHashSet();
+        if (updateRates) {
+            for (Like like : likes) {
+                likedFilms.add(like.getFilmId());
+            }
+        }
+        int[] filmIds = likedFilms.toSortedArray();
+        String sqlRates = "UPDATE FILMS " +
+                "SET film_rate = (SELECT COUNT(*) FROM LIKES WHERE LIKES.film_id = FILMS.film_id) " +
+                "WHERE film_id = ?";
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(sqlLikes, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    statement.setInt(1, likes.get(i).getFilmId());
+                    statement.setInt(2, likes.get(i).getUserId());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return likes.size();
+                }
+            });
+            if (filmIds.length > 0) {
+                jdbcTemplate.batchUpdate(sqlRates, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        statement.setInt(1, filmIds[i]);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return filmIds.length;
+                    }
+                });
+            }
+        });
+    }
+
+    @Override
+    public void importFriendships(List<Friendship> friendships) {
+        log.debug("ImportDbStorage: пакетная запись {} связей дружбы в БД.", friendships.size());
+        String sql = "INSERT INTO FRIENDS (user_id, friend_id) " +
+                "VALUES (?, ?)";
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql,
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        statement.setInt(1, friendships.get(i).getUserId());
+                        statement.setInt(2, friendships.get(i).getFriendId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return friendships.size();
+                    }
+                }));
+    }
+
+    private <T> void advancePastExplicitIds(String table, String column, List<T> rows,
+                                            ToIntFunction<T> idGetter) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int maxExplicitId = 0;
+        for (T row : rows) {
+            maxExplicitId = Math.max(maxExplicitId, idGetter.applyAsInt(row));
+        }
+        identityAllocator.advancePast(table, column, maxExplicitId);
+    }
+
+    private <T> void insertWithIds(String table, String idColumn, String columns, int columnCount, List<T> rows,
+                                   ToIntFunction<T> idGetter, RowSetter<T> setter) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO " + table + " (" + idColumn + ", " + columns + ") " +
+                "OVERRIDING SYSTEM VALUE " +
+                "VALUES (?, " + SqlUtils.placeholders(columnCount) + ")";
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setInt(1, idGetter.applyAsInt(rows.get(i)));
+                setter.setValues(statement, rows.get(i), 2);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private <T> void insertWithGeneratedIds(String table, String idColumn, String columns, int columnCount,
+                                            List<T> rows, ObjIntConsumer<T> idSetter, RowSetter<T> setter) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO " + table + " (" + columns + ") " +
+                "VALUES (" + SqlUtils.placeholders(columnCount) + ")";
+        identityAllocator.generate(() -> jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql, new String[]{idColumn})) {
+                for (T row : rows) {
+                    setter.setValues(statement, row, 1);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (T row : rows) {
+                        if (!keys.next()) {
+                            throw new SQLException("БД вернула меньше идентификаторов, чем вставлено строк.");
+                        }
+                        idSetter.accept(row, keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        }));
+    }
+
+    private interface RowSetter<T> {
+        void setValues(PreparedStatement statement, T row, int firstIndex) throws SQLException;
+    }
+}
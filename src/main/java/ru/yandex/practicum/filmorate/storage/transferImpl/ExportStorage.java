@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage.transferImpl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+public interface ExportStorage {
+
+    long exportUsers(JsonGenerator generator);
+
+    long exportFilms(JsonGenerator generator);
+
+    long exportFilmGenres(JsonGenerator generator);
+
+    long exportLikes(JsonGenerator generator);
+
+    long exportFriendships(JsonGenerator generator);
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.storage.transferImpl;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmGenre;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+
+public interface ImportStorage {
+
+    void importUsers(List<User> users);
+
+    void importFilms(List<Film> films);
+
+    void importFilmGenres(List<FilmGenre> filmGenres);
+
+    void importLikes(List<Like> likes, boolean updateRates);
+
+    void importFriendships(List<Friendship> friendships);
+}
@@ -4,26 +4,28 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.GroupCommitExecutor;
+import ru.yandex.practicum.filmorate.storage.TransactionHooks;
 import ru.yandex.practicum.filmorate.storage.userImpl.FriendStorage;
 import ru.yandex.practicum.filmorate.storage.userImpl.UserStorage;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Repository("FriendDbStorage")
 public class FriendDbStorage implements FriendStorage {
     private final JdbcTemplate jdbcTemplate;
     private final UserStorage userStorage;
+    private final FriendGraph friendGraph;
+    private final GroupCommitExecutor groupCommitExecutor;
 
-    public FriendDbStorage(JdbcTemplate jdbcTemplate, UserStorage userStorage) {
+    public FriendDbStorage(JdbcTemplate jdbcTemplate, UserStorage userStorage, FriendGraph friendGraph,
+                           GroupCommitExecutor groupCommitExecutor) {
         this.jdbcTemplate = jdbcTemplate;
         this.userStorage = userStorage;
+        this.friendGraph = friendGraph;
+        this.groupCommitExecutor = groupCommitExecutor;
     }
 
     @Override
@@ -32,7 +34,8 @@ public class FriendDbStorage implements FriendStorage {
                 userId, friendId);
         String sql = "INSERT INTO FRIENDS(user_id, friend_id) " +
                 "VALUES (?,?)";
-        jdbcTemplate.update(sql, userId, friendId);
+        groupCommitExecutor.execute(() -> jdbcTemplate.update(sql, userId, friendId));
+        TransactionHooks.afterCommit(() -> friendGraph.addFriend(userId, friendId));
         List<User> result = new ArrayList<>();
         result.add(userStorage.get(userId));
         result.add(userStorage.get(friendId));
@@ -44,7 +47,8 @@ public class FriendDbStorage implements FriendStorage {
         log.debug("FriendStorage: запрос к БД от пользователя c id: {} на удаление из друзей пользователя с id: {}.",
                 userId, friendId);
         String sqlDelete = "DELETE FROM FRIENDS WHERE user_id = ? AND friend_id = ?";
-        jdbcTemplate.update(sqlDelete, userId, friendId);
+        groupCommitExecutor.execute(() -> jdbcTemplate.update(sqlDelete, userId, friendId));
+        TransactionHooks.afterCommit(() -> friendGraph.deleteFriend(userId, friendId));
         List<User> result = new ArrayList<>();
         result.add(userStorage.get(userId));
         result.add(userStorage.get(friendId));
@@ -53,54 +57,45 @@ public class FriendDbStorage implements FriendStorage {
 
     @Override
     public List<User> getAllFriends(Integer userId) {
-        log.debug("FriendStorage: запрос к БД на получение списка всех друзей пользователя id: {}.", userId);
-        String sql = "SELECT uf.friend_id, u.user_id, u.user_email, u.user_name, u.user_login, u.user_birthday " +
-                "FROM FRIENDS AS uf " +
-                "LEFT JOIN USERS AS u ON uf.friend_id = u.user_id " +
-                "WHERE uf.user_id = ?";
-        List<User> result = jdbcTemplate.query(sql, this::mapRowToUser, userId);
-        result.forEach(this::setFriend);
-        return result;
+        log.debug("FriendStorage: запрос на получение списка всех друзей пользователя id: {}.", userId);
+        return userStorage.getByIds(toList(friendGraph.friends(userId)));
     }
 
     @Override
-    public List<User> getCommonFriends(Integer userId, Integer otherId) {
-        log.debug("FriendStorage: запрос к БД на получение общих друзей пользователей c id: {} и id: {}.",
-                userId, otherId);
-        String sql = "SELECT friend_id " +
-                "FROM FRIENDS " +
-                "WHERE user_id = ? and friend_id IN (SELECT friend_id " +
-                "FROM FRIENDS " +
-                "WHERE user_id = ?)";
-        List<Integer> common_id = jdbcTemplate.query(sql, this::mapRowToFriendId, userId, otherId);
-        return common_id.stream()
-                .map(userStorage::get)
-                .collect(Collectors.toList());
+    public List<User> getFriendsPage(Integer userId, Integer after, Integer limit) {
+        log.debug("FriendStorage: запрос на получение {} друзей пользователя id: {} с id больше {}.",
+                limit, userId, after);
+        List<Integer> friendIds = new ArrayList<>(limit);
+        for (int friendId : friendGraph.friends(userId)) {
+            if (friendIds.size() == limit) {
+                break;
+            }
+            if (friendId > after) {
+                friendIds.add(friendId);
+            }
+        }
+        return userStorage.getByIds(friendIds);
     }
 
-    public void setFriend(User user) {
-        Integer userId = user.getId();
-        log.debug("UserDbStorage: запрос на обновление друзей пользователя c id: {}.", userId);
-        String sql = "SELECT friend_id " +
-                "FROM FRIENDS " +
-                "WHERE user_id = ?";
-        Set<Integer> friends = new HashSet<>(jdbcTemplate.query(sql, this::mapRowToFriendId, userId));
-        user.getFriends().addAll(friends);
+    @Override
+    public List<User> getCommonFriends(Integer userId, Integer otherId) {
+        log.debug("FriendStorage: запрос на получение общих друзей пользователей c id: {} и id: {}.",
+                userId, otherId);
+        return userStorage.getByIds(toList(friendGraph.commonFriends(userId, otherId)));
     }
 
-    public User mapRowToUser(ResultSet rs, Integer rowNum) throws SQLException {
-        log.debug("RowMapper: получен запрос от БД на преобразование в User.");
-        return User.builder()
-                .id(rs.getInt("user_id"))
-                .email(rs.getString("user_email"))
-                .login(rs.getString("user_login"))
-                .name(rs.getString("user_name"))
-                .birthday(rs.getDate("user_birthday").toLocalDate())
-                .build();
+    @Override
+    public List<User> getFriendSuggestions(Integer userId, Integer limit) {
+        log.debug("FriendStorage: запрос на получение {} рекомендуемых друзей для пользователя c id: {}.",
+                limit, userId);
+        return userStorage.getByIds(toList(friendGraph.suggestFriends(userId, limit)));
     }
 
-    public Integer mapRowToFriendId(ResultSet rs, Integer rowNum) throws SQLException {
-        log.debug("RowMapper: получен запрос от БД на преобразование в id друга.");
-        return rs.getInt("friend_id");
+    private List<Integer> toList(int[] ids) {
+        List<Integer> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(id);
+        }
+        return result;
     }
 }
@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.transfer.DataImportedEvent;
+import ru.yandex.practicum.filmorate.util.AdjacencyRows;
+import ru.yandex.practicum.filmorate.util.CompressedAdjacency;
+import ru.yandex.practicum.filmorate.util.IntIntHashMap;
+
+import javax.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+@Slf4j
+@Component
+public class FriendGraph {
+    private static final int FETCH_SIZE = 10_000;
+    private static final long MAX_TWO_HOP_EDGES = 2_000_000;
+    private static final int MAX_CANDIDATES = 50_000;
+    private static final int CUTOFF_CHECK_INTERVAL = 512;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock graphLock = new ReentrantReadWriteLock();
+    private volatile AdjacencyRows friends = new AdjacencyRows();
+
+    @Autowired
+    public FriendGraph(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    @EventListener(value = DataImportedEvent.class, condition = "#root.event.type == 'friends'")
+    public void rebuild() {
+        log.debug("FriendGraph: построение графа друзей из БД.");
+        String sql = "SELECT user_id, friend_id " +
+                "FROM FRIENDS " +
+                "ORDER BY user_id, friend_id";
+        PreparedStatementCreator statementCreator = connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        };
+        graphLock.writeLock().lock();
+        try {
+            AdjacencyRows.Builder builder = new AdjacencyRows.Builder();
+            RowCallbackHandler rowHandler = rs -> builder.add(rs.getInt("user_id"), rs.getInt("friend_id"));
+            jdbcTemplate.query(statementCreator, rowHandler);
+            friends = builder.build();
+        } finally {
+            graphLock.writeLock().unlock();
+        }
+        log.debug("FriendGraph: в граф загружено связей: {}.", friends.edges());
+    }
+
+    public int[] friends(int userId) {
+        return friends.get(userId);
+    }
+
+    public int friendCount(int userId) {
+        return friends.size(userId);
+    }
+
+    public boolean isFriend(int userId, int friendId) {
+        return friends.contains(userId, friendId);
+    }
+
+    public void forEachFriend(int userId, IntConsumer action) {
+        friends.forEach(userId, action);
+    }
+
+    public int[] commonFriends(int userId, int otherId) {
+        AdjacencyRows current = friends;
+        byte[] first = current.row(userId);
+        byte[] second = current.row(otherId);
+        int[] result = new int[Math.min(CompressedAdjacency.size(first), CompressedAdjacency.size(second))];
+        int[] count = new int[1];
+        CompressedAdjacency.intersect(first, second, friendId -> result[count[0]++] = friendId);
+        return Arrays.copyOf(result, count[0]);
+    }
+
+    public int[] suggestFriends(int userId, int limit) {
+        AdjacencyRows current = friends;
+        int[] friendIds = current.get(userId);
+        int[] visitOrder = shuffledIndexes(friendIds.length, userId);
+        IntIntHashMap mutualCounts = new IntIntHashMap();
+        long visited = 0;
+        for (int i = 0; i < visitOrder.length; i++) {
+            if (visited >= MAX_TWO_HOP_EDGES) {
+                log.debug("FriendGraph: обход друзей друзей пользователя с id: {} остановлен после {} связей.",
+                        userId, visited);
+                break;
+            }
+            if (i > 0 && i % CUTOFF_CHECK_INTERVAL == 0 && isTopSettled(mutualCounts, limit, visitOrder.length - i)) {
+                log.debug("FriendGraph: лучшие кандидаты для пользователя с id: {} определены после {} друзей.",
+                        userId, i);
+                break;
+            }
+            byte[] row = current.row(friendIds[visitOrder[i]]);
+            visited += CompressedAdjacency.size(row);
+            CompressedAdjacency.forEach(row, candidateId -> {
+                if (candidateId == userId || Arrays.binarySearch(friendIds, candidateId) >= 0) {
+                    return;
+                }
+                if (mutualCounts.size() < MAX_CANDIDATES || mutualCounts.get(candidateId) > 0) {
+                    mutualCounts.addTo(candidateId, 1);
+                }
+            });
+        }
+
+        PriorityQueue<Long> topCandidates = new PriorityQueue<>(limit + 1);
+        mutualCounts.forEach((candidateId, mutualCount) -> {
+            topCandidates.add(((long) mutualCount << 32) | (~candidateId & 0xFFFFFFFFL));
+            if (topCandidates.size() > limit) {
+                topCandidates.poll();
+            }
+        });
+        int[] result = new int[topCandidates.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = ~topCandidates.poll().intValue();
+        }
+        return result;
+    }
+
+    private static boolean isTopSettled(IntIntHashMap mutualCounts, int limit, int remainingFriends) {
+        if (mutualCounts.size() < limit) {
+            return false;
+        }
+        PriorityQueue<Integer> topCounts = new PriorityQueue<>(limit + 2);
+        mutualCounts.forEach((candidateId, mutualCount) -> {
+            topCounts.add(mutualCount);
+            if (topCounts.size() > limit + 1) {
+                topCounts.poll();
+            }
+        });
+        int firstOutside = topCounts.size() > limit ? topCounts.poll() : 0;
+        return topCounts.peek() > firstOutside + remainingFriends;
+    }
+
+    private static int[] shuffledIndexes(int length, int seed) {
+        int[] indexes = new int[length];
+        for (int i = 0; i < length; i++) {
+            indexes[i] = i;
+        }
+        Random random = new Random(seed);
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = swap;
+        }
+        return indexes;
+    }
+
+    public void addFriend(int userId, int friendId) {
+        graphLock.readLock().lock();
+        try {
+            friends.add(userId, friendId);
+        } finally {
+            graphLock.readLock().unlock();
+        }
+    }
+
+    public void deleteFriend(int userId, int friendId) {
+        graphLock.readLock().lock();
+        try {
+            friends.remove(userId, friendId);
+        } finally {
+            graphLock.readLock().unlock();
+        }
+    }
+
+    public void deleteUser(int userId, Iterable<Integer> followerIds) {
+        graphLock.readLock().lock();
+        try {
+            friends.removeRow(userId);
+            for (int followerId : followerIds) {
+                friends.remove(followerId, userId);
+            }
+        } finally {
+            graphLock.readLock().unlock();
+        }
+    }
+
+    public long memoryFootprint() {
+        return friends.memoryFootprint();
+    }
+}
@@ -5,9 +5,13 @@ import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.userImpl.UserStorage;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 //@Component
@@ -24,11 +28,35 @@ public class InMemoryUserStorage implements UserStorage {
         return new ArrayList<>(allUsers.values());
     }
 
+    public List<User> findPage(Integer after, Integer limit) {
+        return allUsers.values().stream()
+                .filter(user -> user.getId() > after)
+                .sorted(Comparator.comparing(User::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public void forEachChunk(Integer chunkSize, Consumer<List<User>> action) {
+        List<User> sortedUsers = allUsers.values().stream()
+                .sorted(Comparator.comparing(User::getId))
+                .collect(Collectors.toList());
+        for (int from = 0; from < sortedUsers.size(); from += chunkSize) {
+            action.accept(sortedUsers.subList(from, Math.min(from + chunkSize, sortedUsers.size())));
+        }
+    }
+
     public User get(Integer userId) {
         log.debug("InMemoryUserStorage: пользователь c id: {} получен.", userId);
         return allUsers.get(userId);
     }
 
+    public List<User> getByIds(List<Integer> userIds) {
+        return userIds.stream()
+                .map(allUsers::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     public User create(User user) {
         if (user.getName() == null || user.getName().isEmpty()) {
             user.setName(user.getLogin());
@@ -58,4 +86,8 @@ public class InMemoryUserStorage implements UserStorage {
     public boolean validateDataExists(Integer id) {
         return allUsers.containsKey(id);
     }
+
+    @Override
+    public void setFriends(List<User> users) {
+    }
 }
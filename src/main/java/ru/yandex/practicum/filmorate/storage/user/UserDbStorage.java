@@ -2,29 +2,64 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.IdMembershipIndex;
+import ru.yandex.practicum.filmorate.storage.IdentityAllocator;
+import ru.yandex.practicum.filmorate.storage.SqlUtils;
+import ru.yandex.practicum.filmorate.storage.TransactionHooks;
 import ru.yandex.practicum.filmorate.storage.film.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.transfer.DataImportedEvent;
 import ru.yandex.practicum.filmorate.storage.userImpl.UserStorage;
 
+import javax.annotation.PostConstruct;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Slf4j
 @Repository("UserDbStorage")
 public class UserDbStorage implements UserStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final IdMembershipIndex userIds = new IdMembershipIndex();
     private final LikeDbStorage likeDbStorage;
+    private final FriendGraph friendGraph;
+    private final IdentityAllocator identityAllocator;
+    private final TransactionTemplate chunkTemplate;
 
     @Autowired
-    public UserDbStorage(JdbcTemplate jdbcTemplate, LikeDbStorage likeDbStorage) {
+    public UserDbStorage(JdbcTemplate jdbcTemplate, LikeDbStorage likeDbStorage, FriendGraph friendGraph,
+                         IdentityAllocator identityAllocator, PlatformTransactionManager transactionManager) {
         this.jdbcTemplate = jdbcTemplate;
         this.likeDbStorage = likeDbStorage;
+        this.friendGraph = friendGraph;
+        this.identityAllocator = identityAllocator;
+        this.chunkTemplate = new TransactionTemplate(transactionManager);
+        this.chunkTemplate.setReadOnly(true);
+        this.chunkTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @PostConstruct
+    @EventListener(value = DataImportedEvent.class, condition = "#root.event.type == 'users'")
+    public void loadIds() {
+        log.debug("UserDbStorage: загрузка идентификаторов пользователей из БД.");
+        String sql = "SELECT user_id " +
+                "FROM USERS";
+        userIds.clear();
+        long removalsBefore = userIds.removals();
+        jdbcTemplate.query(sql, rs -> {
+            userIds.addIfNotRemovedSince(rs.getInt("user_id"), removalsBefore);
+        });
     }
 
     @Override
@@ -32,30 +67,87 @@ public class UserDbStorage implements UserStorage {
         log.debug("UserDbStorage: запрос на получение всех пользователей из БД.");
         String sql = "SELECT * " +
                 "FROM USERS";
-        List<User> result = jdbcTemplate.query(sql, this::mapRowToUser);
-        result.forEach(this::setFriend);
+        List<User> result = jdbcTemplate.query(sql, UserDbStorage::mapRowToUser);
+        setFriends(result);
         return result;
     }
 
+    @Override
+    public List<User> findPage(Integer after, Integer limit) {
+        log.debug("UserDbStorage: запрос к БД на получение {} пользователей с id больше {}.", limit, after);
+        String sql = "SELECT user_id, user_email, user_name, user_login, user_birthday " +
+                "FROM USERS " +
+                "WHERE user_id > ? " +
+                "ORDER BY user_id " +
+                "LIMIT ?";
+        List<User> result = jdbcTemplate.query(sql, UserDbStorage::mapRowToUser, after, limit);
+        setFriends(result);
+        return result;
+    }
+
+    @Override
+    public void forEachChunk(Integer chunkSize, Consumer<List<User>> action) {
+        log.debug("UserDbStorage: потоковое чтение всех пользователей из БД порциями по {}.", chunkSize);
+        int after = 0;
+        while (true) {
+            int from = after;
+            List<User> users = chunkTemplate.execute(status -> findPage(from, chunkSize));
+            if (users.isEmpty()) {
+                return;
+            }
+            action.accept(users);
+            if (users.size() < chunkSize) {
+                return;
+            }
+            after = users.get(users.size() - 1).getId();
+        }
+    }
+
     @Override
     public User get(Integer userId) {
         log.debug("UserDbStorage: запрос к БД на получение пользователя с id: {}.", userId);
         String sql = "SELECT user_id, user_email, user_name, user_login, user_birthday " +
                 "FROM USERS " +
                 "WHERE user_id = ?";
-        User result = jdbcTemplate.queryForObject(sql, this::mapRowToUser, userId);
+        User result = jdbcTemplate.queryForObject(sql, UserDbStorage::mapRowToUser, userId);
         this.setFriend(result);
         return result;
     }
 
+    @Override
+    public List<User> getByIds(List<Integer> userIds) {
+        log.debug("UserDbStorage: запрос к БД на получение {} пользователей по id.", userIds.size());
+        Map<Integer, User> usersById = new HashMap<>();
+        for (List<Integer> chunk : SqlUtils.partition(userIds)) {
+            String sql = "SELECT user_id, user_email, user_name, user_login, user_birthday " +
+                    "FROM USERS " +
+                    "WHERE user_id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                User user = mapRowToUser(rs, rs.getRow());
+                usersById.put(user.getId(), user);
+            }, chunk.toArray());
+        }
+        List<User> result = new ArrayList<>(userIds.size());
+        for (Integer userId : userIds) {
+            User user = usersById.get(userId);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        setFriends(result);
+        return result;
+    }
+
     @Override
     public User create(User user) {
         log.debug("UserDbStorage: запрос к БД на добавление нового пользователя: {}.", user.getLogin());
         SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
                 .withTableName("USERS")
                 .usingGeneratedKeyColumns("user_id");
-        Integer userId = simpleJdbcInsert.executeAndReturnKey(user.userToMap()).intValue();
+        Integer userId = identityAllocator.generate(() ->
+                simpleJdbcInsert.executeAndReturnKey(user.userToMap()).intValue());
         user.setId(userId);
+        TransactionHooks.afterCommit(() -> userIds.add(userId));
         return get(userId);
     }
 
@@ -78,44 +170,60 @@ public class UserDbStorage implements UserStorage {
     @Override
     public User delete(Integer userId) {
         log.debug("UserDbStorage: запрос к БД на удаление пользователя с id: {}.", userId);
+        User deletedUser = get(userId);
+        String sqlSelectFollowers = "SELECT user_id " +
+                "FROM FRIENDS " +
+                "WHERE friend_id = ?";
+        List<Integer> followerIds = jdbcTemplate.queryForList(sqlSelectFollowers, Integer.class, userId);
+        String sqlDeleteFriends = "DELETE FROM FRIENDS WHERE user_id = ?";
+        jdbcTemplate.update(sqlDeleteFriends, userId);
         String sqlDeleteFriendship = "DELETE FROM FRIENDS WHERE friend_id = ?";
         jdbcTemplate.update(sqlDeleteFriendship, userId);
-
-        String sqlGetLikedFilms = "SELECT film_id FROM LIKES WHERE user_id = ?";
-        List<Integer> likedFilms = jdbcTemplate.query(sqlGetLikedFilms, this::mapRowToLikeId, userId);
-        likedFilms.forEach(filmId -> likeDbStorage.dislikeFilm(filmId, userId));
-        String sqlDeleteLike = "DELETE FROM LIKES WHERE user_id = ?";
-        jdbcTemplate.update(sqlDeleteLike, userId);
+        likeDbStorage.deleteUserLikes(userId);
         log.debug("UserDbStorage: ссылки на пользователя id: {} удалены из БД.", userId);
 
         String sqlDeleteUser = "DELETE FROM USERS WHERE user_id = ?";
-        User deletedUser = get(userId);
         jdbcTemplate.update(sqlDeleteUser, userId);
+        TransactionHooks.afterCommit(() -> {
+            userIds.remove(userId);
+            friendGraph.deleteUser(userId, followerIds);
+        });
         log.debug("UserDbStorage: пользователь с id: {} удален.", deletedUser.getId());
         return deletedUser;
     }
 
     @Override
     public boolean validateDataExists(Integer userId) {
+        if (userIds.contains(userId)) {
+            return true;
+        }
         log.debug("UserDbStorage: запрос на проверку наличия пользователя с id: {} в БД.", userId);
         String sql = "SELECT COUNT(*) AS count " +
                 "FROM USERS " +
                 "WHERE user_id = ?";
+        long removalsBefore = userIds.removals();
         int count = jdbcTemplate.queryForObject(sql, this::mapRowToCount, userId);
-        return count != 0;
+        if (count == 0) {
+            return false;
+        }
+        TransactionHooks.afterCommit(() -> userIds.addIfNotRemovedSince(userId, removalsBefore));
+        return true;
     }
 
     public void setFriend(User user) {
-        Integer userId = user.getId();
-        log.debug("UserDbStorage: запрос на обновление друзей пользователя c id: {}.", userId);
-        String sql = "SELECT friend_id " +
-                "FROM FRIENDS " +
-                "WHERE user_id = ?";
-        Set<Integer> friends = new HashSet<>(jdbcTemplate.query(sql, this::mapRowToFriendId, userId));
-        user.getFriends().addAll(friends);
+        log.debug("UserDbStorage: установлено значение поля friends у пользователя c id: {}.", user.getId());
+        friendGraph.forEachFriend(user.getId(), user.getFriends()::add);
     }
 
-    public User mapRowToUser(ResultSet rs, Integer rowNum) throws SQLException {
+    @Override
+    public void setFriends(List<User> users) {
+        log.debug("UserDbStorage: установлено значение поля friends у {} пользователей.", users.size());
+        for (User user : users) {
+            setFriend(user);
+        }
+    }
+
+    public static User mapRowToUser(ResultSet rs, Integer rowNum) throws SQLException {
         log.debug("RowMapper: получен запрос от БД на преобразование в User.");
         return User.builder()
                 .id(rs.getInt("user_id"))
@@ -130,14 +238,4 @@ public class UserDbStorage implements UserStorage {
         log.debug("RowMapper: получен запрос от БД на преобразование в количество записей");
         return rs.getInt("count");
     }
-
-    public Integer mapRowToLikeId(ResultSet rs, Integer rowNum) throws SQLException {
-        log.debug("RowMapper: получен запрос от БД на преобразование в id понравившегося фильма.");
-        return rs.getInt("film_id");
-    }
-
-    public Integer mapRowToFriendId(ResultSet rs, Integer rowNum) throws SQLException {
-        log.debug("RowMapper: получен запрос от БД на преобразование в id друга.");
-        return rs.getInt("friend_id");
-    }
 }
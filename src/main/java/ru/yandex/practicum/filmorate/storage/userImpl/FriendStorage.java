@@ -12,5 +12,9 @@ public interface FriendStorage {
 
     List<User> getAllFriends(Integer userId);
 
+    List<User> getFriendsPage(Integer userId, Integer after, Integer limit);
+
     List<User> getCommonFriends(Integer userId, Integer otherId);
+
+    List<User> getFriendSuggestions(Integer userId, Integer limit);
 }
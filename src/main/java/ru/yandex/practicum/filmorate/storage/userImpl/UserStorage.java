@@ -3,5 +3,11 @@ package ru.yandex.practicum.filmorate.storage.userImpl;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.Storage;
 
+import java.util.List;
+
 public interface UserStorage extends Storage<User> {
+
+    List<User> getByIds(List<Integer> userIds);
+
+    void setFriends(List<User> users);
 }
@@ -0,0 +1,308 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+public class AdjacencyRows {
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int SEGMENT_COUNT = 1 << (Integer.SIZE - 1 - SEGMENT_SHIFT);
+    private static final int MAX_PENDING = 64;
+    private static final int[] NONE = new int[0];
+    private final AtomicReferenceArray<AtomicReferenceArray<Object>> segments;
+    private final LongAdder edges = new LongAdder();
+
+    public AdjacencyRows() {
+        this(new AtomicReferenceArray<>(SEGMENT_COUNT), 0);
+    }
+
+    private AdjacencyRows(AtomicReferenceArray<AtomicReferenceArray<Object>> segments, long edges) {
+        this.segments = segments;
+        this.edges.add(edges);
+    }
+
+    public byte[] row(int id) {
+        AtomicReferenceArray<Object> segment = existingSegment(segments, id);
+        if (segment == null) {
+            return CompressedAdjacency.EMPTY;
+        }
+        int slot = id & SEGMENT_MASK;
+        Object value = segment.get(slot);
+        if (value instanceof Pending) {
+            byte[] merged = ((Pending) value).merge();
+            segment.compareAndSet(slot, value, merged);
+            return merged;
+        }
+        return value == null ? CompressedAdjacency.EMPTY : (byte[]) value;
+    }
+
+    public int[] get(int id) {
+        return CompressedAdjacency.decode(row(id));
+    }
+
+    public int size(int id) {
+        Object value = value(id);
+        if (value instanceof Pending) {
+            return ((Pending) value).size;
+        }
+        return value == null ? 0 : CompressedAdjacency.size((byte[]) value);
+    }
+
+    public boolean contains(int id, int value) {
+        Object current = value(id);
+        if (current instanceof Pending) {
+            return ((Pending) current).contains(value);
+        }
+        return current != null && CompressedAdjacency.contains((byte[]) current, value);
+    }
+
+    public void forEach(int id, IntConsumer action) {
+        CompressedAdjacency.forEach(row(id), action);
+    }
+
+    public boolean add(int id, int value) {
+        AtomicReferenceArray<Object> segment = segment(segments, id);
+        int slot = id & SEGMENT_MASK;
+        while (true) {
+            Object current = segment.get(slot);
+            Object updated = Pending.of(current).add(value);
+            if (updated == null) {
+                return false;
+            }
+            if (segment.compareAndSet(slot, current, updated)) {
+                edges.increment();
+                return true;
+            }
+        }
+    }
+
+    public boolean remove(int id, int value) {
+        AtomicReferenceArray<Object> segment = existingSegment(segments, id);
+        if (segment == null) {
+            return false;
+        }
+        int slot = id & SEGMENT_MASK;
+        while (true) {
+            Object current = segment.get(slot);
+            if (current == null) {
+                return false;
+            }
+            Object updated = Pending.of(current).remove(value);
+            if (updated == null) {
+                return false;
+            }
+            if (segment.compareAndSet(slot, current, updated)) {
+                edges.decrement();
+                return true;
+            }
+        }
+    }
+
+    public int[] removeRow(int id) {
+        AtomicReferenceArray<Object> segment = existingSegment(segments, id);
+        if (segment == null) {
+            return NONE;
+        }
+        Object removed = segment.getAndSet(id & SEGMENT_MASK, null);
+        if (removed == null) {
+            return NONE;
+        }
+        byte[] row = removed instanceof Pending ? ((Pending) removed).merge() : (byte[]) removed;
+        int[] ids = CompressedAdjacency.decode(row);
+        edges.add(-ids.length);
+        return ids;
+    }
+
+    public long edges() {
+        return edges.sum();
+    }
+
+    public long memoryFootprint() {
+        long bytes = (long) SEGMENT_COUNT * Integer.BYTES;
+        for (int index = 0; index < SEGMENT_COUNT; index++) {
+            AtomicReferenceArray<Object> segment = segments.get(index);
+            if (segment == null) {
+                continue;
+            }
+            bytes += (long) SEGMENT_SIZE * Integer.BYTES;
+            for (int slot = 0; slot < SEGMENT_SIZE; slot++) {
+                Object value = segment.get(slot);
+                if (value instanceof Pending) {
+                    Pending pending = (Pending) value;
+                    bytes += 3 * 16 + pending.base.length
+                            + (long) (pending.added.length + pending.removed.length) * Integer.BYTES;
+                } else if (value != null && value != CompressedAdjacency.EMPTY) {
+                    bytes += 16 + ((byte[]) value).length;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private Object value(int id) {
+        AtomicReferenceArray<Object> segment = existingSegment(segments, id);
+        return segment == null ? null : segment.get(id & SEGMENT_MASK);
+    }
+
+    private static AtomicReferenceArray<Object> existingSegment(
+            AtomicReferenceArray<AtomicReferenceArray<Object>> segments, int id) {
+        if (id < 0) {
+            return null;
+        }
+        return segments.get(id >>> SEGMENT_SHIFT);
+    }
+
+    private static AtomicReferenceArray<Object> segment(AtomicReferenceArray<AtomicReferenceArray<Object>> segments,
+                                                        int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Отрицательный идентификатор строки: " + id);
+        }
+        int index = id >>> SEGMENT_SHIFT;
+        AtomicReferenceArray<Object> segment = segments.get(index);
+        if (segment == null) {
+            segments.compareAndSet(index, null, new AtomicReferenceArray<>(SEGMENT_SIZE));
+            segment = segments.get(index);
+        }
+        return segment;
+    }
+
+    private static final class Pending {
+        private final byte[] base;
+        private final int[] added;
+        private final int[] removed;
+        private final int size;
+
+        private Pending(byte[] base, int[] added, int[] removed, int size) {
+            this.base = base;
+            this.added = added;
+            this.removed = removed;
+            this.size = size;
+        }
+
+        private static Pending of(Object value) {
+            if (value instanceof Pending) {
+                return (Pending) value;
+            }
+            byte[] base = value == null ? CompressedAdjacency.EMPTY : (byte[]) value;
+            return new Pending(base, NONE, NONE, CompressedAdjacency.size(base));
+        }
+
+        private boolean contains(int value) {
+            if (Arrays.binarySearch(added, value) >= 0) {
+                return true;
+            }
+            return Arrays.binarySearch(removed, value) < 0 && CompressedAdjacency.contains(base, value);
+        }
+
+        private Object add(int value) {
+            int removedAt = Arrays.binarySearch(removed, value);
+            if (removedAt >= 0) {
+                return compact(added, without(removed, removedAt), size + 1);
+            }
+            int addedAt = Arrays.binarySearch(added, value);
+            if (addedAt >= 0 || CompressedAdjacency.contains(base, value)) {
+                return null;
+            }
+            return compact(with(added, -addedAt - 1, value), removed, size + 1);
+        }
+
+        private Object remove(int value) {
+            int addedAt = Arrays.binarySearch(added, value);
+            if (addedAt >= 0) {
+                return compact(without(added, addedAt), removed, size - 1);
+            }
+            int removedAt = Arrays.binarySearch(removed, value);
+            if (removedAt >= 0 || !CompressedAdjacency.contains(base, value)) {
+                return null;
+            }
+            return compact(added, with(removed, -removedAt - 1, value), size - 1);
+        }
+
+        private Object compact(int[] added, int[] removed, int size) {
+            if (added.length == 0 && removed.length == 0) {
+                return base;
+            }
+            Pending pending = new Pending(base, added, removed, size);
+            return added.length + removed.length > MAX_PENDING ? pending.merge() : pending;
+        }
+
+        private byte[] merge() {
+            int[] ids = new int[size];
+            int count = 0;
+            int addedIndex = 0;
+            int removedIndex = 0;
+            for (int id : CompressedAdjacency.decode(base)) {
+                while (addedIndex < added.length && added[addedIndex] < id) {
+                    ids[count++] = added[addedIndex++];
+                }
+                if (removedIndex < removed.length && removed[removedIndex] == id) {
+                    removedIndex++;
+                    continue;
+                }
+                ids[count++] = id;
+            }
+            while (addedIndex < added.length) {
+                ids[count++] = added[addedIndex++];
+            }
+            return CompressedAdjacency.encode(ids, count);
+        }
+
+        private static int[] with(int[] values, int position, int value) {
+            int[] updated = new int[values.length + 1];
+            System.arraycopy(values, 0, updated, 0, position);
+            updated[position] = value;
+            System.arraycopy(values, position, updated, position + 1, values.length - position);
+            return updated;
+        }
+
+        private static int[] without(int[] values, int position) {
+            if (values.length == 1) {
+                return NONE;
+            }
+            int[] updated = new int[values.length - 1];
+            System.arraycopy(values, 0, updated, 0, position);
+            System.arraycopy(values, position + 1, updated, position, values.length - position - 1);
+            return updated;
+        }
+    }
+
+    public static class Builder {
+        private final AtomicReferenceArray<AtomicReferenceArray<Object>> segments =
+                new AtomicReferenceArray<>(SEGMENT_COUNT);
+        private int[] values = new int[16];
+        private int currentId = -1;
+        private int length;
+        private long edges;
+
+        public void add(int id, int value) {
+            if (id != currentId) {
+                flush();
+                currentId = id;
+            }
+            if (length > 0 && values[length - 1] == value) {
+                return;
+            }
+            if (length == values.length) {
+                values = Arrays.copyOf(values, length * 2);
+            }
+            values[length++] = value;
+            edges++;
+        }
+
+        public AdjacencyRows build() {
+            flush();
+            return new AdjacencyRows(segments, edges);
+        }
+
+        private void flush() {
+            if (length == 0) {
+                return;
+            }
+            segment(segments, currentId).set(currentId & SEGMENT_MASK, CompressedAdjacency.encode(values, length));
+            length = 0;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public final class CompressedAdjacency {
+    public static final byte[] EMPTY = new byte[]{0};
+
+    private CompressedAdjacency() {
+    }
+
+    public static byte[] encode(int[] sortedIds, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        byte[] buffer = new byte[(length + 1) * 5];
+        int position = writeVarint(buffer, 0, length);
+        int previous = 0;
+        for (int i = 0; i < length; i++) {
+            position = writeVarint(buffer, position, sortedIds[i] - previous);
+            previous = sortedIds[i];
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    public static int[] decode(byte[] row) {
+        Reader reader = new Reader(row);
+        int[] ids = new int[reader.remaining];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = reader.next();
+        }
+        return ids;
+    }
+
+    public static int size(byte[] row) {
+        return new Reader(row).remaining;
+    }
+
+    public static boolean contains(byte[] row, int id) {
+        Reader reader = new Reader(row);
+        while (reader.hasNext()) {
+            int current = reader.next();
+            if (current >= id) {
+                return current == id;
+            }
+        }
+        return false;
+    }
+
+    public static byte[] insert(byte[] row, int id) {
+        int[] ids = decode(row);
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return row;
+        }
+        int insertAt = -position - 1;
+        int[] updated = new int[ids.length + 1];
+        System.arraycopy(ids, 0, updated, 0, insertAt);
+        updated[insertAt] = id;
+        System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+        return encode(updated, updated.length);
+    }
+
+    public static byte[] remove(byte[] row, int id) {
+        int[] ids = decode(row);
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return row;
+        }
+        System.arraycopy(ids, position + 1, ids, position, ids.length - position - 1);
+        return encode(ids, ids.length - 1);
+    }
+
+    public static void forEach(byte[] row, IntConsumer action) {
+        Reader reader = new Reader(row);
+        while (reader.hasNext()) {
+            action.accept(reader.next());
+        }
+    }
+
+    public static void intersect(byte[] first, byte[] second, IntConsumer action) {
+        Reader left = new Reader(first);
+        Reader right = new Reader(second);
+        if (!left.hasNext() || !right.hasNext()) {
+            return;
+        }
+        int leftId = left.next();
+        int rightId = right.next();
+        while (true) {
+            if (leftId == rightId) {
+                action.accept(leftId);
+                if (!left.hasNext() || !right.hasNext()) {
+                    return;
+                }
+                leftId = left.next();
+                rightId = right.next();
+            } else if (leftId < rightId) {
+                if (!left.hasNext()) {
+                    return;
+                }
+                leftId = left.next();
+            } else {
+                if (!right.hasNext()) {
+                    return;
+                }
+                rightId = right.next();
+            }
+        }
+    }
+
+    private static int writeVarint(byte[] buffer, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    private static final class Reader {
+        private final byte[] row;
+        private int position;
+        private int remaining;
+        private int previous;
+
+        private Reader(byte[] row) {
+            this.row = row;
+            this.remaining = readVarint();
+        }
+
+        private boolean hasNext() {
+            return remaining > 0;
+        }
+
+        private int next() {
+            previous += readVarint();
+            remaining--;
+            return previous;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = row[position++];
+                value |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class IntHashSet extends AbstractSet<Integer> {
+    private static final int EMPTY = 0;
+    private static final int MIN_CAPACITY = 8;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+    private int[] table = new int[MIN_CAPACITY];
+    private boolean containsEmpty;
+    private int size;
+
+    public boolean add(int value) {
+        if (value == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int slot = find(table, value);
+        if (table[slot] == value) {
+            return false;
+        }
+        table[slot] = value;
+        size++;
+        if (size * 4L > table.length * 3L) {
+            resize(table.length * 2);
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+        return table[find(table, value)] == value;
+    }
+
+    public boolean remove(int value) {
+        if (value == EMPTY) {
+            if (!containsEmpty) {
+                return false;
+            }
+            containsEmpty = false;
+            size--;
+            return true;
+        }
+        int slot = find(table, value);
+        if (table[slot] != value) {
+            return false;
+        }
+        shiftBack(slot);
+        size--;
+        return true;
+    }
+
+    public int[] toSortedArray() {
+        int[] result = new int[size];
+        int index = 0;
+        if (containsEmpty) {
+            result[index++] = EMPTY;
+        }
+        for (int value : table) {
+            if (value != EMPTY) {
+                result[index++] = value;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    public int capacity() {
+        return table.length;
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return add(value.intValue());
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Integer && contains(((Integer) value).intValue());
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return value instanceof Integer && remove(((Integer) value).intValue());
+    }
+
+    @Override
+    public void clear() {
+        table = new int[MIN_CAPACITY];
+        containsEmpty = false;
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private final int[] values = table;
+            private boolean emptyPending = containsEmpty;
+            private int next = advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return emptyPending || next < values.length;
+            }
+
+            @Override
+            public Integer next() {
+                if (emptyPending) {
+                    emptyPending = false;
+                    return EMPTY;
+                }
+                if (next >= values.length) {
+                    throw new NoSuchElementException();
+                }
+                int value = values[next];
+                next = advance(next + 1);
+                return value;
+            }
+
+            private int advance(int from) {
+                int index = from;
+                while (index < values.length && values[index] == EMPTY) {
+                    index++;
+                }
+                return index;
+            }
+        };
+    }
+
+    private void resize(int capacity) {
+        int[] resized = new int[capacity];
+        for (int value : table) {
+            if (value != EMPTY) {
+                resized[find(resized, value)] = value;
+            }
+        }
+        table = resized;
+    }
+
+    private void shiftBack(int removedSlot) {
+        int mask = table.length - 1;
+        int gap = removedSlot;
+        int slot = (gap + 1) & mask;
+        while (table[slot] != EMPTY) {
+            int home = hash(table[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = table[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[gap] = EMPTY;
+    }
+
+    private static int find(int[] values, int value) {
+        int mask = values.length - 1;
+        int slot = hash(value) & mask;
+        while (values[slot] != EMPTY && values[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int value) {
+        int hash = value * GOLDEN_RATIO;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+public class IntHashSetSerializer extends StdSerializer<IntHashSet> {
+
+    public IntHashSetSerializer() {
+        super(IntHashSet.class);
+    }
+
+    @Override
+    public void serialize(IntHashSet value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        int[] values = value.toSortedArray();
+        generator.writeArray(values, 0, values.length);
+    }
+}
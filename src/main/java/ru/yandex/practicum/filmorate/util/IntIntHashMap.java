@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.util;
+
+public class IntIntHashMap {
+    private static final int EMPTY = 0;
+    private static final int MIN_CAPACITY = 16;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+    private int[] keys;
+    private int[] values;
+    private int zeroValue;
+    private boolean containsZero;
+    private int size;
+
+    public IntIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L < expectedSize * 4L) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    public int get(int key) {
+        if (key == EMPTY) {
+            return containsZero ? zeroValue : 0;
+        }
+        int slot = find(keys, key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    public int addTo(int key, int delta) {
+        if (key == EMPTY) {
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            zeroValue += delta;
+            return zeroValue;
+        }
+        int slot = find(keys, key);
+        if (keys[slot] == key) {
+            values[slot] += delta;
+            return values[slot];
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        size++;
+        if (size * 4L > keys.length * 3L) {
+            resize(keys.length * 2);
+        }
+        return delta;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(IntIntConsumer action) {
+        if (containsZero) {
+            action.accept(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int find(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int hash = key * GOLDEN_RATIO;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+}
@@ -52,4 +52,18 @@ CREATE TABLE IF NOT EXISTS LIKES
     film_id int NOT NULL REFERENCES FILMS (film_id),
     user_id int NOT NULL REFERENCES USERS (user_id),
     PRIMARY KEY (film_id, user_id)
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS FILM_SIGNATURES
+(
+    film_id int NOT NULL PRIMARY KEY REFERENCES FILMS (film_id),
+    likes_count int NOT NULL,
+    likers_hash bigint NOT NULL,
+    signature varbinary(256) NOT NULL
+);
+
+ALTER TABLE FILM_SIGNATURES ADD COLUMN IF NOT EXISTS likers_hash bigint NOT NULL DEFAULT 0;
+
+DROP TRIGGER IF EXISTS USERS_DELETE_IDS;
+
+DROP TRIGGER IF EXISTS FILMS_DELETE_IDS;
@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase()
+public class ExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenData_whenExport_thenGzippedNdjsonInImportFormat() throws Exception {
+        mockMvc.perform(post("/import/users").content(
+                "{\"id\":1,\"email\":\"oleg@yandex.ru\",\"login\":\"OlegT\",\"name\":\"Oleg\"," +
+                        "\"birthday\":\"1993-12-03\"}\n"));
+        mockMvc.perform(post("/import/films").param("format", "csv").content(
+                "id,name,description,releaseDate,duration,rate,mpaId,genreIds\n" +
+                        "1,Saw,Saw description.,2003-02-13,100,,1,2;1\n"));
+        mockMvc.perform(post("/import/likes").param("updateRates", "true")
+                .content("{\"filmId\":1,\"userId\":1}\n"));
+
+        List<JsonNode> users = export("users");
+        assertEquals(1, users.size());
+        assertEquals("OlegT", users.get(0).get("login").asText());
+        assertEquals("1993-12-03", users.get(0).get("birthday").asText());
+
+        List<JsonNode> films = export("films");
+        assertEquals(1, films.size());
+        assertEquals(1, films.get(0).get("rate").asInt());
+        assertEquals(1, films.get(0).get("mpa").get("id").asInt());
+
+        List<JsonNode> genres = export("genres");
+        assertEquals(2, genres.size());
+        assertEquals(1, genres.get(0).get("genreId").asInt());
+
+        assertEquals(1, export("likes").size());
+        assertEquals(0, export("friends").size());
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenExportedData_whenImportedBack_thenRateEqualsLikesCount() throws Exception {
+        mockMvc.perform(post("/import/users").content(
+                "{\"id\":1,\"email\":\"oleg@yandex.ru\",\"login\":\"OlegT\",\"birthday\":\"1993-12-03\"}\n" +
+                        "{\"id\":2,\"email\":\"ivan@yandex.ru\",\"login\":\"Ivan\",\"birthday\":\"1990-01-01\"}\n"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/import/films").param("format", "csv").content(
+                "id,name,description,releaseDate,duration,rate,mpaId,genreIds\n" +
+                        "1,Saw,Saw description.,2003-02-13,100,,1,1\n" +
+                        "2,Matrix,Matrix description.,1999-03-31,136,,2,\n"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/import/likes").content(
+                "{\"filmId\":1,\"userId\":1}\n{\"filmId\":1,\"userId\":2}\n{\"filmId\":2,\"userId\":2}\n"))
+                .andExpect(status().isOk());
+        byte[] users = exportBytes("users");
+        byte[] films = exportBytes("films");
+        byte[] genres = exportBytes("genres");
+        byte[] likes = exportBytes("likes");
+
+        jdbcTemplate.update("DELETE FROM LIKES");
+        jdbcTemplate.update("DELETE FROM FILM_GENRES");
+        jdbcTemplate.update("DELETE FROM FILMS");
+        jdbcTemplate.update("DELETE FROM USERS");
+        mockMvc.perform(post("/import/users").content(users))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/import/films").content(films))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/import/genres").content(genres))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/import/likes").content(likes))
+                .andExpect(status().isOk());
+
+        List<Integer> mismatched = jdbcTemplate.queryForList("SELECT film_id FROM FILMS " +
+                "WHERE film_rate <> (SELECT COUNT(*) FROM LIKES WHERE LIKES.film_id = FILMS.film_id)", Integer.class);
+        assertTrue(mismatched.isEmpty(), mismatched.toString());
+        mockMvc.perform(get("/films/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(2));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenUnknownType_whenExport_thenStatus400() throws Exception {
+        mockMvc.perform(get("/export/{type}", "passwords"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<JsonNode> export(String type) throws Exception {
+        return lines(exportBytes(type));
+    }
+
+    private byte[] exportBytes(String type) throws Exception {
+        MvcResult result = mockMvc.perform(get("/export/{type}", type))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private List<JsonNode> lines(byte[] body) throws IOException {
+        List<JsonNode> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(body)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rows.add(objectMapper.readTree(line));
+            }
+        }
+        return rows;
+    }
+}
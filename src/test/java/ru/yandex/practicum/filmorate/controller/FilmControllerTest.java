@@ -9,6 +9,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.yandex.practicum.filmorate.controller.film.FilmController;
 import ru.yandex.practicum.filmorate.exception.*;
 import ru.yandex.practicum.filmorate.model.Film;
@@ -18,7 +19,9 @@ import java.time.LocalDate;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -214,6 +217,48 @@ class FilmControllerTest {
                 .andExpect(jsonPath("$.mpa.name").value("G"));
     }
 
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenClientRate_whenCreatedAndUpdated_thenRateCountedFromLikes() throws Exception {
+        Film film = Film.builder()
+                .name("Saw")
+                .description("Saw description.")
+                .releaseDate(LocalDate.of(2003, 2, 13))
+                .duration(100)
+                .rate(500)
+                .mpa(Mpa.builder()
+                        .id(1)
+                        .build())
+                .build();
+        mockMvc.perform(
+                        post("/films")
+                                .content(objectMapper.writeValueAsString(film))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(0));
+        mockMvc.perform(
+                post("/users")
+                        .content("{\"email\":\"oleg@yandex.ru\",\"login\":\"OlegT\",\"name\":\"Oleg\"," +
+                                "\"birthday\":\"1993-12-03\"}")
+                        .contentType(MediaType.APPLICATION_JSON));
+        mockMvc.perform(put("/films/{id}/like/{userId}", 1, 1));
+
+        film.setId(1);
+        film.setName("SawNew");
+        film.setRate(1_000);
+        mockMvc.perform(
+                        put("/films")
+                                .content(objectMapper.writeValueAsString(film))
+                                .contentType(MediaType.APPLICATION_JSON))
+
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("SawNew"))
+                .andExpect(jsonPath("$.rate").value(1));
+        mockMvc.perform(get("/films/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(1));
+    }
+
     @Test
     @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
     void givenUpdateFilmWithEmptyName_whenUpdated_thenStatus400() throws Exception {
@@ -466,4 +511,139 @@ class FilmControllerTest {
 
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenFindFilmsWithLimit_whenFind_thenStatus200AndKeysetPages() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            Film film = Film.builder()
+                    .name("Saw" + i)
+                    .description("Saw description.")
+                    .releaseDate(LocalDate.of(2003, 2, 13))
+                    .duration(100)
+                    .rate(0)
+                    .mpa(Mpa.builder()
+                            .id(1)
+                            .name("G")
+                            .build())
+                    .build();
+            mockMvc.perform(
+                    post("/films")
+                            .content(objectMapper.writeValueAsString(film))
+                            .contentType(MediaType.APPLICATION_JSON));
+        }
+
+        mockMvc.perform(
+                        get("/films")
+                                .param("limit", "2"))
+
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2));
+
+        mockMvc.perform(
+                        get("/films")
+                                .param("after", "2")
+                                .param("limit", "2"))
+
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[0].name").value("Saw3"));
+    }
+
+    @Test
+    void givenFindFilmsWithInvalidLimit_whenFind_thenStatus400() throws Exception {
+        mockMvc.perform(
+                        get("/films")
+                                .param("limit", "0"))
+
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertTrue(result.getResolvedException()
+                        instanceof IllegalArgumentException));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenStreamFilms_whenStream_thenStatus200AndOneJsonLinePerFilm() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            Film film = Film.builder()
+                    .name("Saw" + i)
+                    .description("Saw description.")
+                    .releaseDate(LocalDate.of(2003, 2, 13))
+                    .duration(100)
+                    .rate(0)
+                    .mpa(Mpa.builder()
+                            .id(1)
+                            .name("G")
+                            .build())
+                    .build();
+            mockMvc.perform(
+                    post("/films")
+                            .content(objectMapper.writeValueAsString(film))
+                            .contentType(MediaType.APPLICATION_JSON));
+        }
+
+        MvcResult mvcResult = mockMvc.perform(
+                        get("/films/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(result -> {
+                    String[] lines = result.getResponse().getContentAsString().split("\n");
+                    assertEquals(3, lines.length);
+                    for (int i = 0; i < lines.length; i++) {
+                        Film film = objectMapper.readValue(lines[i], Film.class);
+                        assertEquals(i + 1, film.getId().intValue());
+                        assertEquals("Saw" + (i + 1), film.getName());
+                    }
+                });
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenFilms_whenSearch_thenStatus200AndMatchingFilmsRankedFirst() throws Exception {
+        String[][] texts = {
+                {"Ёжик в тумане", "Ежик идет через туман к лошадке."},
+                {"Saw", "Saw description."},
+                {"Туман", "Туман, туман и ещё раз туман."}
+        };
+        for (String[] text : texts) {
+            Film film = Film.builder()
+                    .name(text[0])
+                    .description(text[1])
+                    .releaseDate(LocalDate.of(2003, 2, 13))
+                    .duration(100)
+                    .rate(0)
+                    .mpa(Mpa.builder()
+                            .id(1)
+                            .name("G")
+                            .build())
+                    .build();
+            mockMvc.perform(
+                    post("/films")
+                            .content(objectMapper.writeValueAsString(film))
+                            .contentType(MediaType.APPLICATION_JSON));
+        }
+
+        mockMvc.perform(
+                        get("/films/search")
+                                .param("q", "ТУМАН"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[1].id").value(1));
+
+        mockMvc.perform(
+                        get("/films/search")
+                                .param("q", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertEquals("Строка поиска не может быть пустой.",
+                        result.getResolvedException().getMessage()));
+    }
 }
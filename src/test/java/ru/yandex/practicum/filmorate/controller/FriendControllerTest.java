@@ -574,6 +574,41 @@ public class FriendControllerTest {
                 .andExpect(result -> assertEquals("Пользователя c таким id не существует.",
                         result.getResolvedException().getMessage()));
     }
-}
 
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenFriendsOfFriends_whenGetSuggestions_thenRankedByMutualFriends() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            User user = User.builder()
+                    .name("Oleg" + i)
+                    .email("terentjev" + i + ".dr@yandex.ru")
+                    .login("OlegT" + i)
+                    .birthday(LocalDate.of(1993, 12, 3))
+                    .build();
+            mockMvc.perform(
+                    post("/users")
+                            .content(objectMapper.writeValueAsString(user))
+                            .contentType(MediaType.APPLICATION_JSON));
+        }
+        int[][] friendships = {{1, 2}, {1, 3}, {2, 3}, {2, 4}, {3, 4}, {2, 5}};
+        for (int[] friendship : friendships) {
+            mockMvc.perform(put("/users/{id}/friends/{friendId}", friendship[0], friendship[1]));
+        }
+
+        mockMvc.perform(
+                        get("/users/{id}/friends/suggestions", 1))
+
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(4))
+                .andExpect(jsonPath("$[1].id").value(5));
+
+        mockMvc.perform(
+                        get("/users/{id}/friends/suggestions", 1)
+                                .param("limit", "1"))
 
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(4));
+    }
+}
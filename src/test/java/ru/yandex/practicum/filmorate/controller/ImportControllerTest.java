@@ -0,0 +1,174 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase()
+public class ImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenImportedData_whenGetPopularAndFriends_thenIndexesRebuilt() throws Exception {
+        String users = "{\"id\":1,\"email\":\"oleg@yandex.ru\",\"login\":\"OlegT\",\"name\":\"Oleg\"," +
+                "\"birthday\":\"1993-12-03\"}\n" +
+                "{\"id\":2,\"email\":\"ivan@yandex.ru\",\"login\":\"Ivan\",\"name\":\"\"," +
+                "\"birthday\":\"1990-01-01\"}\n";
+        mockMvc.perform(post("/import/users").content(users))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(2));
+
+        String films = "id,name,description,releaseDate,duration,rate,mpaId,genreIds\n" +
+                "1,Saw,\"Saw, description.\",2003-02-13,100,0,1,1;2\n" +
+                "2,Matrix,\"The \"\"Matrix\"\".\",1999-03-31,136,0,2,\n";
+        mockMvc.perform(post("/import/films").param("format", "csv").content(films))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(2));
+
+        String likes = "{\"filmId\":2,\"userId\":1}\n{\"filmId\":2,\"userId\":2}\n{\"filmId\":1,\"userId\":1}\n";
+        mockMvc.perform(post("/import/likes").param("updateRates", "true").content(likes))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(3));
+
+        mockMvc.perform(post("/import/friends").param("format", "csv").content("userId,friendId\n1,2\n"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/popular").param("count", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].rate").value(2))
+                .andExpect(jsonPath("$[0].description").value("The \"Matrix\"."))
+                .andExpect(jsonPath("$[1].id").value(1))
+                .andExpect(jsonPath("$[1].genres.length()").value(2));
+        mockMvc.perform(get("/users/{id}/friends", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].name").value("Ivan"));
+
+        User user = User.builder()
+                .name("Petr")
+                .email("petr@yandex.ru")
+                .login("Petr")
+                .birthday(LocalDate.of(1985, 5, 5))
+                .build();
+        mockMvc.perform(post("/users")
+                        .content(objectMapper.writeValueAsString(user))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(3));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenRowsWithAndWithoutIds_whenImport_thenGeneratedIdsFollowExplicitOnesAndRatesUpdated()
+            throws Exception {
+        String users = "{\"id\":5,\"email\":\"oleg@yandex.ru\",\"login\":\"OlegT\",\"birthday\":\"1993-12-03\"}\n" +
+                "{\"email\":\"ivan@yandex.ru\",\"login\":\"Ivan\",\"birthday\":\"1990-01-01\"}\n";
+        mockMvc.perform(post("/import/users").content(users))
+                .andExpect(status().isOk());
+        String films = "id,name,description,releaseDate,duration,rate,mpaId,genreIds\n" +
+                ",Saw,Saw description.,2003-02-13,100,0,1,1\n";
+        mockMvc.perform(post("/import/films").param("format", "csv").content(films))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/import/likes").content("{\"filmId\":1,\"userId\":5}\n{\"filmId\":1,\"userId\":6}\n"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}", 6))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.login").value("Ivan"));
+        mockMvc.perform(get("/films/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(2))
+                .andExpect(jsonPath("$.genres.length()").value(1));
+        mockMvc.perform(post("/import/users").content(users))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenInvalidRows_whenImport_thenStatus400() throws Exception {
+        mockMvc.perform(post("/import/films").param("format", "csv")
+                        .content("id,name,description,releaseDate,duration,rate,mpaId,genreIds\n" +
+                                "1,Old,Old film.,1800-01-01,100,0,1,\n"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/import/likes").content("{\"filmId\":1,\"userId\":1}\n"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/import/unknown").content(""))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenGzippedLikes_whenImport_thenThroughputReported() throws Exception {
+        int usersCount = 2_000;
+        int filmsCount = 100;
+        StringBuilder users = new StringBuilder();
+        for (int i = 1; i <= usersCount; i++) {
+            users.append("{\"email\":\"user").append(i).append("@yandex.ru\",\"login\":\"user").append(i)
+                    .append("\",\"birthday\":\"1990-01-01\"}\n");
+        }
+        mockMvc.perform(post("/import/users").content(users.toString()))
+                .andExpect(status().isOk());
+        StringBuilder films = new StringBuilder();
+        for (int i = 1; i <= filmsCount; i++) {
+            films.append(objectMapper.writeValueAsString(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(90)
+                    .mpa(new Mpa(1, "G"))
+                    .build())).append('\n');
+        }
+        mockMvc.perform(post("/import/films").content(films.toString()))
+                .andExpect(status().isOk());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (int filmId = 1; filmId <= filmsCount; filmId++) {
+                for (int userId = 1; userId <= usersCount; userId++) {
+                    gzip.write(("{\"filmId\":" + filmId + ",\"userId\":" + userId + "}\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        String response = mockMvc.perform(post("/import/likes")
+                        .param("updateRates", "true")
+                        .content(bytes.toByteArray()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        ImportReport report = objectMapper.readValue(response, ImportReport.class);
+
+        assertEquals((long) usersCount * filmsCount, report.getRows());
+        assertTrue(report.getRowsPerSecond() > 20_000, report.toString());
+        mockMvc.perform(get("/films/popular").param("count", "1"))
+                .andExpect(jsonPath("$[0].rate").value(usersCount));
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.yandex.practicum.filmorate.exception.*;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
 
@@ -506,4 +507,118 @@ public class LikeControllerTest {
                 .andExpect(result -> assertEquals("Значение count должно быть больше 0.",
                         result.getResolvedException().getMessage()));
     }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenFilmsWithSharedLikers_whenGetSimilar_thenStatus200AndSimilarFilms() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            Film film = Film.builder()
+                    .name("Saw" + i)
+                    .description("Saw description.")
+                    .releaseDate(LocalDate.of(2003, 2, 13))
+                    .duration(100)
+                    .rate(0)
+                    .mpa(Mpa.builder()
+                            .id(1)
+                            .build())
+                    .build();
+            mockMvc.perform(
+                    post("/films")
+                            .content(objectMapper.writeValueAsString(film))
+                            .contentType(MediaType.APPLICATION_JSON));
+        }
+        for (int i = 1; i <= 3; i++) {
+            User user = User.builder()
+                    .name("Oleg" + i)
+                    .email("terentjev" + i + ".dr@yandex.ru")
+                    .login("OlegT" + i)
+                    .birthday(LocalDate.of(1993, 12, 3))
+                    .build();
+            mockMvc.perform(
+                    post("/users")
+                            .content(objectMapper.writeValueAsString(user))
+                            .contentType(MediaType.APPLICATION_JSON));
+        }
+        int[][] likes = {{1, 1}, {1, 2}, {2, 1}, {2, 2}, {3, 3}};
+        for (int[] like : likes) {
+            mockMvc.perform(put("/films/{id}/like/{userId}", like[0], like[1]));
+        }
+
+        mockMvc.perform(
+                        get("/films/{id}/similar", 1))
+
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenSimilarFilmsWithInvalidFilmId_whenGetSimilar_thenStatus404() throws Exception {
+        mockMvc.perform(
+                        get("/films/{id}/similar", 1))
+
+                .andExpect(status().isNotFound())
+                .andExpect(result -> assertTrue(result.getResolvedException() instanceof FilmValidationException));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenMostPopularFilmWithFilters_whenFilter_thenStatus200AndOnlyMatchingFilms() throws Exception {
+        int[][] facets = {{2003, 1, 1}, {2003, 2, 2}, {2004, 1, 1}};
+        for (int[] facet : facets) {
+            Film film = Film.builder()
+                    .name("Saw" + facet[0])
+                    .description("Saw description.")
+                    .releaseDate(LocalDate.of(facet[0], 2, 13))
+                    .duration(100)
+                    .rate(0)
+                    .mpa(Mpa.builder()
+                            .id(facet[1])
+                            .build())
+                    .build();
+            film.getGenres().add(Genre.builder()
+                    .id(facet[2])
+                    .build());
+            mockMvc.perform(
+                    post("/films")
+                            .content(objectMapper.writeValueAsString(film))
+                            .contentType(MediaType.APPLICATION_JSON));
+        }
+        User user = User.builder()
+                .name("Oleg")
+                .email("terentjev.dr@yandex.ru")
+                .login("OlegT")
+                .birthday(LocalDate.of(1993, 12, 3))
+                .build();
+        mockMvc.perform(
+                post("/users")
+                        .content(objectMapper.writeValueAsString(user))
+                        .contentType(MediaType.APPLICATION_JSON));
+        mockMvc.perform(put("/films/{id}/like/{userId}", 3, 1));
+
+        mockMvc.perform(
+                        get("/films/popular")
+                                .param("genreId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[1].id").value(1));
+
+        mockMvc.perform(
+                        get("/films/popular")
+                                .param("genreId", "1")
+                                .param("year", "2003"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1));
+
+        mockMvc.perform(
+                        get("/films/popular")
+                                .param("mpaId", "2")
+                                .param("count", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2));
+    }
 }
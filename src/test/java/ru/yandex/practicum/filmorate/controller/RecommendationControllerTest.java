@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+public class RecommendationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenUsersWithOverlappingLikes_whenGetRecommendations_thenFilmsOfSimilarUsersReturned() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            Film film = Film.builder()
+                    .name("Saw" + i)
+                    .description("Saw description.")
+                    .releaseDate(LocalDate.of(2003, 2, 13))
+                    .duration(100)
+                    .rate(0)
+                    .mpa(Mpa.builder()
+                            .id(1)
+                            .build())
+                    .build();
+            mockMvc.perform(
+                    post("/films")
+                            .content(objectMapper.writeValueAsString(film))
+                            .contentType(MediaType.APPLICATION_JSON));
+        }
+        for (int i = 1; i <= 3; i++) {
+            User user = User.builder()
+                    .name("Oleg" + i)
+                    .email("terentjev" + i + ".dr@yandex.ru")
+                    .login("OlegT" + i)
+                    .birthday(LocalDate.of(1993, 12, 3))
+                    .build();
+            mockMvc.perform(
+                    post("/users")
+                            .content(objectMapper.writeValueAsString(user))
+                            .contentType(MediaType.APPLICATION_JSON));
+        }
+        int[][] likes = {{1, 1}, {2, 1}, {1, 2}, {2, 2}, {3, 2}, {4, 3}};
+        for (int[] like : likes) {
+            mockMvc.perform(put("/films/{id}/like/{userId}", like[0], like[1]));
+        }
+
+        mockMvc.perform(
+                        get("/users/{id}/recommendations", 1))
+
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3));
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", 3, 1));
+
+        mockMvc.perform(
+                        get("/users/{id}/recommendations", 1))
+
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+}
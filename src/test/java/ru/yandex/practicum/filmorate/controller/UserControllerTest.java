@@ -19,6 +19,7 @@ import java.time.LocalDate;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -430,4 +431,32 @@ class UserControllerTest {
                 .andExpect(result -> assertEquals("Пользователя c таким id не существует.",
                         result.getResolvedException().getMessage()));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenFindUsersWithLimit_whenFind_thenStatus200AndKeysetPages() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            User user = User.builder()
+                    .name("Oleg" + i)
+                    .email("terentjev" + i + ".dr@yandex.ru")
+                    .login("OlegT" + i)
+                    .birthday(LocalDate.of(1993, 12, 3))
+                    .build();
+            mockMvc.perform(
+                    post("/users")
+                            .content(objectMapper.writeValueAsString(user))
+                            .contentType(MediaType.APPLICATION_JSON));
+        }
+
+        mockMvc.perform(
+                        get("/users")
+                                .param("after", "1")
+                                .param("limit", "1"))
+
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].login").value("OlegT2"));
+    }
+}
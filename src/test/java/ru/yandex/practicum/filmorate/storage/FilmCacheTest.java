@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FilmCacheTest {
+
+    @Test
+    void givenFilmsOverMaxWeight_whenPut_thenLeastRecentlyUsedEvicted() {
+        FilmCache filmCache = new FilmCache(10);
+        filmCache.put(filmWithLikes(1, 3), filmCache.generation(1));
+        filmCache.put(filmWithLikes(2, 3), filmCache.generation(2));
+        filmCache.getIfPresent(1);
+        filmCache.put(filmWithLikes(3, 3), filmCache.generation(3));
+
+        assertNotNull(filmCache.getIfPresent(1));
+        assertNull(filmCache.getIfPresent(2));
+        assertNotNull(filmCache.getIfPresent(3));
+        FilmCache.Stats stats = filmCache.stats();
+        assertEquals(3, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(8, stats.getWeight());
+    }
+
+    @Test
+    void givenFilmHeavierThanCache_whenPut_thenNotCached() {
+        FilmCache filmCache = new FilmCache(10);
+        filmCache.put(filmWithLikes(1, 100), filmCache.generation(1));
+
+        assertNull(filmCache.getIfPresent(1));
+        assertEquals(0, filmCache.stats().getWeight());
+    }
+
+    @Test
+    void givenInvalidationDuringLoad_whenPut_thenStaleFilmNotCached() {
+        FilmCache filmCache = new FilmCache(10);
+        long generation = filmCache.generation(1);
+        filmCache.invalidate(1);
+        filmCache.put(filmWithLikes(1, 1), generation);
+
+        assertNull(filmCache.getIfPresent(1));
+    }
+
+    @Test
+    void givenSegmentedCache_whenPutAndGetManyFilms_thenStatsAggregatedOverSegments() {
+        FilmCache filmCache = new FilmCache(100_000);
+        for (int filmId = 1; filmId <= 1_000; filmId++) {
+            filmCache.put(filmWithLikes(filmId, 0), filmCache.generation(filmId));
+        }
+        for (int filmId = 1; filmId <= 1_000; filmId++) {
+            assertNotNull(filmCache.getIfPresent(filmId));
+        }
+        filmCache.invalidateAll();
+
+        assertNull(filmCache.getIfPresent(1));
+        FilmCache.Stats stats = filmCache.stats();
+        assertEquals(1_000, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0, stats.getSize());
+        assertEquals(0, stats.getWeight());
+    }
+
+    private Film filmWithLikes(int filmId, int likes) {
+        Film film = Film.builder()
+                .id(filmId)
+                .name("Saw" + filmId)
+                .build();
+        IntStream.range(0, likes).forEach(userId -> film.getLikes().add(userId));
+        return film;
+    }
+}
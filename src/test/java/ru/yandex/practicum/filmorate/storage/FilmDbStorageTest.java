@@ -0,0 +1,462 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeService;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.LikeGraph;
+import ru.yandex.practicum.filmorate.storage.film.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.SimilarFilmsIndex;
+import ru.yandex.practicum.filmorate.storage.filmImpl.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmImpl.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.userImpl.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@Import(QueryCounter.class)
+class FilmDbStorageTest {
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private LikeService likeService;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private LikeStorage likeStorage;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private LikeGraph likeGraph;
+
+    @Autowired
+    private SimilarFilmsIndex similarFilmsIndex;
+
+    @Autowired
+    private PopularityIndex popularityIndex;
+
+    @Autowired
+    private FilmSearchIndex filmSearchIndex;
+
+    @Autowired
+    private FilmCache filmCache;
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenGrowingCatalogue_whenFindAll_thenQueryCountStaysConstant() {
+        User user = userStorage.create(User.builder()
+                .name("Oleg")
+                .email("terentjev.dr@yandex.ru")
+                .login("OlegT")
+                .birthday(LocalDate.of(1993, 12, 3))
+                .build());
+
+        createLikedFilms(10, user.getId());
+        queryCounter.reset();
+        List<Film> smallCatalogue = filmService.findAllFilms();
+        int smallCatalogueQueries = queryCounter.getCount();
+
+        createLikedFilms(490, user.getId());
+        queryCounter.reset();
+        List<Film> largeCatalogue = filmService.findAllFilms();
+        int largeCatalogueQueries = queryCounter.getCount();
+
+        assertEquals(10, smallCatalogue.size());
+        assertEquals(500, largeCatalogue.size());
+        assertEquals(smallCatalogueQueries, largeCatalogueQueries);
+        for (Film film : largeCatalogue) {
+            assertEquals(2, film.getGenres().size());
+            assertEquals(Set.of(user.getId()), film.getLikes());
+        }
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenGrowingCount_whenGetMostPopularFilms_thenQueryCountStaysConstantAndFilmsHydrated() {
+        User user = userStorage.create(User.builder()
+                .name("Oleg")
+                .email("terentjev.dr@yandex.ru")
+                .login("OlegT")
+                .birthday(LocalDate.of(1993, 12, 3))
+                .build());
+        createLikedFilms(500, user.getId());
+
+        queryCounter.reset();
+        List<Film> fewPopularFilms = likeService.getMostPopularFilms(10);
+        int fewPopularFilmsQueries = queryCounter.getCount();
+
+        queryCounter.reset();
+        List<Film> manyPopularFilms = likeService.getMostPopularFilms(500);
+        int manyPopularFilmsQueries = queryCounter.getCount();
+
+        assertEquals(10, fewPopularFilms.size());
+        assertEquals(500, manyPopularFilms.size());
+        assertEquals(fewPopularFilmsQueries, manyPopularFilmsQueries);
+        assertEquals(0, manyPopularFilmsQueries);
+        for (Film film : manyPopularFilms) {
+            assertEquals(filmStorage.get(film.getId()), film);
+        }
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenUpdateWithSameGenres_whenUpdate_thenNothingWrittenToFilmGenres() {
+        Film film = filmStorage.create(newFilm("Saw", 1, 2));
+
+        Film sameGenres = newFilm("Saw updated", 1, 2);
+        sameGenres.setId(film.getId());
+        queryCounter.reset();
+        Film updated = filmStorage.update(sameGenres);
+
+        assertEquals("Saw updated", updated.getName());
+        assertEquals(2, updated.getGenres().size());
+        assertEquals(0, queryCounter.countStatementsStartingWith("INSERT INTO FILM_GENRES"));
+        assertEquals(0, queryCounter.countStatementsStartingWith("DELETE FROM FILM_GENRES"));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenClientRate_whenUpdate_thenStoredRateKept() {
+        Film film = filmStorage.create(newFilm("Saw", 1));
+
+        Film withRate = newFilm("Saw updated", 1);
+        withRate.setId(film.getId());
+        withRate.setRate(1_000);
+        Film updated = filmStorage.update(withRate);
+
+        assertEquals("Saw updated", updated.getName());
+        assertEquals(0, updated.getRate());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT film_rate FROM FILMS WHERE film_id = ?",
+                Integer.class, film.getId()));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenUpdateWithChangedGenres_whenUpdate_thenOnlyDiffWrittenInBatches() {
+        Film film = filmStorage.create(newFilm("Saw", 1, 2, 3));
+
+        Film changedGenres = newFilm("Saw", 2, 4, 5);
+        changedGenres.setId(film.getId());
+        queryCounter.reset();
+        Film updated = filmStorage.update(changedGenres);
+
+        assertEquals(Set.of(2, 4, 5), updated.getGenres().stream()
+                .map(Genre::getId)
+                .collect(Collectors.toSet()));
+        assertEquals(1, queryCounter.countStatementsStartingWith("INSERT INTO FILM_GENRES"));
+        assertEquals(1, queryCounter.countStatementsStartingWith("DELETE FROM FILM_GENRES"));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenFilmsWithSameMpaAndGenre_whenGet_thenReferenceDataInstancesShared() {
+        Film first = filmStorage.create(newFilm("Saw", 1));
+        Film second = filmStorage.create(newFilm("Saw2", 1));
+
+        queryCounter.reset();
+        Film firstLoaded = filmStorage.get(first.getId());
+        Film secondLoaded = filmStorage.get(second.getId());
+
+        assertSame(firstLoaded.getMpa(), secondLoaded.getMpa());
+        assertEquals("G", firstLoaded.getMpa().getName());
+        assertSame(firstLoaded.getGenres().iterator().next(), secondLoaded.getGenres().iterator().next());
+        assertEquals(0, queryCounter.countStatementsStartingWith("SELECT mpa_id"));
+        assertEquals(0, queryCounter.countStatementsStartingWith("SELECT genre_id, genre"));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenCachedFilm_whenGetAndLike_thenCacheServesReadsAndIsInvalidatedByLike() {
+        User user = userStorage.create(User.builder()
+                .name("Oleg")
+                .email("terentjev.dr@yandex.ru")
+                .login("OlegT")
+                .birthday(LocalDate.of(1993, 12, 3))
+                .build());
+        Film film = filmStorage.create(newFilm("Saw", 1));
+
+        queryCounter.reset();
+        Film cached = filmStorage.get(film.getId());
+        assertEquals(0, queryCounter.getCount());
+
+        likeStorage.likeFilm(film.getId(), user.getId());
+        Film liked = filmStorage.get(film.getId());
+
+        assertEquals(Set.of(), cached.getLikes());
+        assertEquals(Set.of(user.getId()), liked.getLikes());
+        assertEquals(1, liked.getRate().intValue());
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenMoreFilmsThanChunk_whenForEachChunk_thenEachChunkLoadedByOwnKeysetQuery() {
+        for (int i = 0; i < 25; i++) {
+            filmStorage.create(newFilm("Saw" + i, 1));
+        }
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<Integer> filmIds = new ArrayList<>();
+        queryCounter.reset();
+        filmStorage.forEachChunk(10, films -> {
+            chunkSizes.add(films.size());
+            for (Film film : films) {
+                filmIds.add(film.getId());
+                assertEquals(1, film.getGenres().size());
+            }
+        });
+
+        assertEquals(List.of(10, 10, 5), chunkSizes);
+        assertEquals(25, new HashSet<>(filmIds).size());
+        for (int i = 1; i < filmIds.size(); i++) {
+            assertTrue(filmIds.get(i - 1) < filmIds.get(i));
+        }
+        assertEquals(3, queryCounter.countStatementsStartingWith("SELECT film_id, film_name"));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenStreamThroughService_whenChunkWritten_thenNoTransactionHeldBetweenChunks() {
+        for (int i = 0; i < 5; i++) {
+            filmStorage.create(newFilm("Saw " + i, 1));
+        }
+        List<Boolean> transactionActive = new ArrayList<>();
+
+        filmService.forEachFilmChunk(2, films ->
+                transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive()));
+
+        assertEquals(List.of(false, false, false), transactionActive);
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenFilmDeleted_whenValidateDataExists_thenFalseUnlessRolledBack() {
+        Film deleted = filmStorage.create(newFilm("Saw", 1));
+        Film restored = filmStorage.create(newFilm("Saw II", 1));
+        assertTrue(filmStorage.validateDataExists(deleted.getId()));
+        assertTrue(filmStorage.validateDataExists(restored.getId()));
+
+        filmStorage.delete(deleted.getId());
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            filmStorage.delete(restored.getId());
+            status.setRollbackOnly();
+        });
+
+        assertFalse(filmStorage.validateDataExists(deleted.getId()));
+        assertTrue(filmStorage.validateDataExists(restored.getId()));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenFilmDeletedWhileCheckInFlight_whenCheckCommitted_thenFilmNotMarkedExisting() {
+        jdbcTemplate.update("INSERT INTO FILMS (film_name, film_description, film_release_date, " +
+                "film_duration, film_rate, mpa_id) VALUES ('Saw', 'Description', '2004-01-19', 103, 0, 1)");
+        int filmId = jdbcTemplate.queryForObject("SELECT MAX(film_id) FROM FILMS", Integer.class);
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        outer.executeWithoutResult(status -> {
+            assertTrue(filmStorage.validateDataExists(filmId));
+            inner.executeWithoutResult(innerStatus -> filmStorage.delete(filmId));
+        });
+
+        assertFalse(filmStorage.validateDataExists(filmId));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenCreateRolledBack_whenReadIndexes_thenNoTraceOfFilm() {
+        Integer filmId = new TransactionTemplate(transactionManager).execute(status -> {
+            Film created = filmStorage.create(newFilm("Saw", 1));
+            assertEquals("Saw", filmStorage.get(created.getId()).getName());
+            status.setRollbackOnly();
+            return created.getId();
+        });
+
+        assertNull(filmCache.getIfPresent(filmId));
+        assertFalse(filmStorage.validateDataExists(filmId));
+        assertTrue(filmSearchIndex.search("Saw", 10).isEmpty());
+        assertFalse(popularityIndex.top(10).contains(filmId));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenUserDeletionRolledBack_whenDeleteAgain_thenRatesAndGraphFollowCommittedLikes() {
+        User first = userStorage.create(User.builder()
+                .name("Oleg")
+                .email("terentjev.dr@yandex.ru")
+                .login("OlegT")
+                .birthday(LocalDate.of(1993, 12, 3))
+                .build());
+        User second = userStorage.create(User.builder()
+                .name("Ivan")
+                .email("ivan@yandex.ru")
+                .login("Ivan")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build());
+        Film saw = filmStorage.create(newFilm("Saw", 1));
+        Film matrix = filmStorage.create(newFilm("Matrix", 1));
+        likeStorage.likeFilm(saw.getId(), first.getId());
+        likeStorage.likeFilm(saw.getId(), second.getId());
+        likeStorage.likeFilm(matrix.getId(), first.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userStorage.delete(first.getId());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(2, filmStorage.get(saw.getId()).getRate());
+        assertEquals(2, likeGraph.likersCount(saw.getId()));
+        assertEquals(2, likeGraph.likedFilmsCount(first.getId()));
+        assertEquals(List.of(saw.getId(), matrix.getId()), popularityIndex.top(2));
+
+        userStorage.delete(first.getId());
+
+        assertEquals(1, filmStorage.get(saw.getId()).getRate());
+        assertEquals(0, filmStorage.get(matrix.getId()).getRate());
+        assertEquals(1, likeGraph.likersCount(saw.getId()));
+        assertEquals(0, likeGraph.likersCount(matrix.getId()));
+        assertEquals(0, likeGraph.likedFilmsCount(first.getId()));
+        assertEquals(saw.getId(), popularityIndex.top(1).get(0));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenLikerReplacedWithSameLikesCount_whenRebuildSimilarFilms_thenSignatureRecomputed() {
+        User first = userStorage.create(User.builder()
+                .name("Oleg")
+                .email("terentjev.dr@yandex.ru")
+                .login("OlegT")
+                .birthday(LocalDate.of(1993, 12, 3))
+                .build());
+        User second = userStorage.create(User.builder()
+                .name("Ivan")
+                .email("ivan@yandex.ru")
+                .login("IvanI")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build());
+        Film film = filmStorage.create(newFilm("Saw", 1));
+        Film other = filmStorage.create(newFilm("Saw II", 1));
+        likeStorage.addLike(film.getId(), first.getId());
+        likeStorage.addLike(other.getId(), second.getId());
+        similarFilmsIndex.flush();
+
+        jdbcTemplate.update("DELETE FROM LIKES WHERE film_id = ?", film.getId());
+        jdbcTemplate.update("INSERT INTO LIKES (film_id, user_id) VALUES (?, ?)", film.getId(), second.getId());
+        likeGraph.rebuild();
+        similarFilmsIndex.rebuild();
+
+        assertEquals(1.0, similarFilmsIndex.estimateJaccard(film.getId(), other.getId()));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenSignaturesTableWithoutLikersHash_whenSchemaApplied_thenStaleSignaturesRecomputed() {
+        User first = userStorage.create(User.builder()
+                .name("Oleg")
+                .email("terentjev.dr@yandex.ru")
+                .login("OlegT")
+                .birthday(LocalDate.of(1993, 12, 3))
+                .build());
+        User second = userStorage.create(User.builder()
+                .name("Ivan")
+                .email("ivan@yandex.ru")
+                .login("IvanI")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build());
+        Film film = filmStorage.create(newFilm("Saw", 1));
+        Film other = filmStorage.create(newFilm("Saw II", 1));
+        likeStorage.addLike(film.getId(), first.getId());
+        likeStorage.addLike(other.getId(), second.getId());
+        similarFilmsIndex.flush();
+
+        jdbcTemplate.execute("ALTER TABLE FILM_SIGNATURES DROP COLUMN likers_hash");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(jdbcTemplate.getDataSource());
+        jdbcTemplate.update("DELETE FROM LIKES WHERE film_id = ?", film.getId());
+        jdbcTemplate.update("INSERT INTO LIKES (film_id, user_id) VALUES (?, ?)", film.getId(), second.getId());
+        likeGraph.rebuild();
+        similarFilmsIndex.rebuild();
+
+        assertEquals(1.0, similarFilmsIndex.estimateJaccard(film.getId(), other.getId()));
+    }
+
+    private Film newFilm(String name, int... genreIds) {
+        Film film = Film.builder()
+                .name(name)
+                .description("Saw description.")
+                .releaseDate(LocalDate.of(2003, 2, 13))
+                .duration(100)
+                .rate(0)
+                .mpa(Mpa.builder()
+                        .id(1)
+                        .build())
+                .build();
+        for (int genreId : genreIds) {
+            film.getGenres().add(Genre.builder().id(genreId).build());
+        }
+        return film;
+    }
+
+    private void createLikedFilms(int count, Integer userId) {
+        for (int i = 0; i < count; i++) {
+            Film film = Film.builder()
+                    .name("Saw" + i)
+                    .description("Saw description.")
+                    .releaseDate(LocalDate.of(2003, 2, 13))
+                    .duration(100)
+                    .rate(0)
+                    .mpa(Mpa.builder()
+                            .id(1)
+                            .build())
+                    .build();
+            film.getGenres().add(Genre.builder().id(1).build());
+            film.getGenres().add(Genre.builder().id(2).build());
+            Film created = filmStorage.create(film);
+            likeStorage.likeFilm(created.getId(), userId);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.film.FilmRecommender;
+import ru.yandex.practicum.filmorate.storage.film.LikeGraph;
+import ru.yandex.practicum.filmorate.util.AdjacencyRows;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilmRecommenderTest {
+
+    @Test
+    void givenUserLikesChanged_whenRecommend_thenCachedResultInvalidated() {
+        LikeGraph likeGraph = new LikeGraph(null);
+        int[][] likes = {{1, 1}, {2, 1}, {1, 2}, {2, 2}, {3, 2}, {4, 3}};
+        for (int[] like : likes) {
+            likeGraph.addLike(like[0], like[1]);
+        }
+        FilmRecommender filmRecommender = new FilmRecommender(likeGraph);
+
+        assertEquals(List.of(3), filmRecommender.recommend(1, 10));
+        likeGraph.addLike(3, 1);
+        assertEquals(List.of(), filmRecommender.recommend(1, 10));
+        filmRecommender.shutdown();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void givenLargeSyntheticLikeGraph_whenRecommend_thenP99UnderHundredMillis() {
+        int users = 100_000;
+        int films = 10_000;
+        int likesPerUser = 20;
+        Random random = new Random(21);
+        int[] userIds = new int[users * likesPerUser];
+        int[] filmIds = new int[users * likesPerUser];
+        int[] userFilms = new int[likesPerUser];
+        AdjacencyRows.Builder filmsByUser = new AdjacencyRows.Builder();
+        for (int userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                userFilms[i] = 1 + (int) (films * Math.pow(random.nextDouble(), 2));
+            }
+            Arrays.sort(userFilms);
+            for (int i = 0; i < likesPerUser; i++) {
+                filmsByUser.add(userId, userFilms[i]);
+                userIds[(userId - 1) * likesPerUser + i] = userId;
+                filmIds[(userId - 1) * likesPerUser + i] = userFilms[i];
+            }
+        }
+        AdjacencyRows.Builder usersByFilm = new AdjacencyRows.Builder();
+        long[] pairs = new long[filmIds.length];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = ((long) filmIds[i] << 32) | userIds[i];
+        }
+        Arrays.sort(pairs);
+        for (long pair : pairs) {
+            usersByFilm.add((int) (pair >>> 32), (int) pair);
+        }
+        LikeGraph likeGraph = new LikeGraph(null);
+        likeGraph.replace(filmsByUser.build(), usersByFilm.build());
+        FilmRecommender filmRecommender = new FilmRecommender(likeGraph);
+
+        long[] latencies = new long[200];
+        for (int i = 0; i < latencies.length; i++) {
+            int userId = 1 + random.nextInt(users);
+            long start = System.nanoTime();
+            List<Integer> recommendations = filmRecommender.recommend(userId, 10);
+            latencies[i] = System.nanoTime() - start;
+            assertEquals(10, recommendations.size());
+        }
+        filmRecommender.shutdown();
+        Arrays.sort(latencies);
+        long p99Millis = latencies[(int) (latencies.length * 0.99)] / 1_000_000;
+        assertTrue(p99Millis < 100, "p99 рекомендаций: " + p99Millis + " мс");
+    }
+}
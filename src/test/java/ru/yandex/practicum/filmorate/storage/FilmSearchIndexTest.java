@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilmSearchIndexTest {
+    private static final int FILMS = 500_000;
+    private static final int VOCABULARY = 50_000;
+    private static final int DESCRIPTION_WORDS = 12;
+
+    @Test
+    void givenCyrillicText_whenTokenize_thenLowerCasedAndYoReplaced() {
+        assertEquals(List.of("ежик", "в", "тумане", "1975"), FilmSearchIndex.tokenize("Ёжик в тумане (1975)"));
+    }
+
+    @Test
+    void givenIndexedFilms_whenSearch_thenRankedByBm25() {
+        FilmSearchIndex index = new FilmSearchIndex(null);
+        index.add(1, "Ёжик в тумане", "Ежик идет через туман к лошадке.");
+        index.add(2, "Пила", "Фильм ужасов.");
+        index.add(3, "Туман", "Туман, туман и ещё раз туман.");
+
+        assertEquals(List.of(1), index.search("ёжик", 10));
+        assertEquals(List.of(3, 1), index.search("ТУМАН", 10));
+        assertTrue(index.search("матрица", 10).isEmpty());
+    }
+
+    @Test
+    void givenFilmUpdatedAndDeleted_whenSearch_thenOldTermsNotFound() {
+        FilmSearchIndex index = new FilmSearchIndex(null);
+        index.add(1, "Пила", "Фильм ужасов.");
+        index.add(1, "Пила 2", "Продолжение.");
+
+        assertTrue(index.search("ужасов", 10).isEmpty());
+        assertEquals(List.of(1), index.search("продолжение", 10));
+
+        index.remove(1);
+        assertTrue(index.search("пила", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void givenFilmIdsAboveTwoToTheTwentyEighth_whenSearch_thenIdsAndFrequenciesKept() {
+        FilmSearchIndex index = new FilmSearchIndex(null);
+        index.add(300_000_000, "Туман", "Туман, туман и ещё раз туман.");
+        index.add(Integer.MAX_VALUE, "Ёжик и туман", "Ежик идет к лошадке.");
+
+        assertEquals(List.of(300_000_000, Integer.MAX_VALUE), index.search("туман", 10));
+        assertEquals(List.of(Integer.MAX_VALUE), index.search("ежик", 10));
+
+        index.remove(300_000_000);
+        assertEquals(List.of(Integer.MAX_VALUE), index.search("туман", 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void givenHalfMillionFilms_whenSearch_thenMedianUnderOneMillisecond() {
+        Random random = new Random(17);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = word(random, i % 2 == 0 ? 'а' : 'a');
+        }
+        double[] zipf = new double[VOCABULARY];
+        double total = 0;
+        for (int i = 0; i < zipf.length; i++) {
+            total += 1.0 / (i + 1);
+            zipf[i] = total;
+        }
+        String[] names = new String[FILMS + 1];
+        FilmSearchIndex.Builder builder = new FilmSearchIndex.Builder();
+        StringBuilder description = new StringBuilder();
+        for (int filmId = 1; filmId <= FILMS; filmId++) {
+            names[filmId] = words[random.nextInt(VOCABULARY)] + " " + words[random.nextInt(VOCABULARY)];
+            description.setLength(0);
+            for (int i = 0; i < DESCRIPTION_WORDS; i++) {
+                int position = Arrays.binarySearch(zipf, random.nextDouble() * total);
+                description.append(words[Math.min(position < 0 ? -position - 1 : position, VOCABULARY - 1)])
+                        .append(' ');
+            }
+            builder.add(filmId, names[filmId], description.toString());
+        }
+        FilmSearchIndex index = new FilmSearchIndex(null);
+        index.replace(builder);
+
+        for (int i = 0; i < 5_000; i++) {
+            index.search(names[1 + random.nextInt(FILMS)], 10);
+        }
+        int queries = 1_000;
+        long[] latencies = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            int filmId = 1 + random.nextInt(FILMS);
+            long start = System.nanoTime();
+            List<Integer> result = index.search(names[filmId], 10);
+            latencies[i] = System.nanoTime() - start;
+            assertTrue(result.contains(filmId));
+        }
+        Arrays.sort(latencies);
+        long medianMicros = latencies[queries / 2] / 1_000;
+        long p99Micros = latencies[(int) (queries * 0.99)] / 1_000;
+        long memoryMegabytes = index.memoryFootprint() / (1024 * 1024);
+        String report = "медиана поиска: " + medianMicros + " мкс, p99: " + p99Micros + " мкс, память индекса: "
+                + memoryMegabytes + " МБ";
+        assertTrue(medianMicros < 1_000, report);
+        assertTrue(memoryMegabytes < 200, report);
+    }
+
+    private static String word(Random random, char firstLetter) {
+        char[] letters = new char[4 + random.nextInt(6)];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) (firstLetter + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+}
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FriendGraphTest {
+
+    @Test
+    void givenSmallGraph_whenSuggestFriends_thenNonFriendsRankedByMutualCount() {
+        FriendGraph friendGraph = new FriendGraph(null);
+        int[][] friendships = {{1, 2}, {1, 3}, {1, 4}, {2, 5}, {3, 5}, {4, 5}, {2, 6}, {3, 6}, {4, 7}, {2, 1}};
+        for (int[] friendship : friendships) {
+            friendGraph.addFriend(friendship[0], friendship[1]);
+        }
+
+        assertArrayEquals(new int[]{5, 6, 7}, friendGraph.suggestFriends(1, 10));
+        assertArrayEquals(new int[]{5}, friendGraph.suggestFriends(1, 1));
+        assertArrayEquals(new int[]{2, 3, 4}, friendGraph.friends(1));
+        assertArrayEquals(new int[]{5, 6}, friendGraph.commonFriends(2, 3));
+    }
+
+    @Test
+    void givenDeletedUser_whenDeleteUser_thenOwnRowAndFollowerEdgesRemoved() {
+        FriendGraph friendGraph = new FriendGraph(null);
+        int[][] friendships = {{1, 2}, {1, 3}, {2, 1}, {2, 3}, {3, 1}, {4, 2}};
+        for (int[] friendship : friendships) {
+            friendGraph.addFriend(friendship[0], friendship[1]);
+        }
+
+        friendGraph.deleteUser(1, Arrays.asList(2, 3));
+
+        assertArrayEquals(new int[0], friendGraph.friends(1));
+        assertArrayEquals(new int[]{3}, friendGraph.friends(2));
+        assertArrayEquals(new int[0], friendGraph.friends(3));
+        assertArrayEquals(new int[]{2}, friendGraph.friends(4));
+    }
+
+    @Test
+    void givenClearLeaderAmongManyCandidates_whenSuggestFriends_thenLeadersFoundWithEarlyCutoff() {
+        FriendGraph friendGraph = new FriendGraph(null);
+        for (int friendId = 2; friendId <= 3_001; friendId++) {
+            friendGraph.addFriend(1, friendId);
+            friendGraph.addFriend(friendId, 5_000);
+            if (friendId % 2 == 0) {
+                friendGraph.addFriend(friendId, 5_001);
+            }
+            friendGraph.addFriend(friendId, 10_000 + friendId);
+        }
+
+        assertArrayEquals(new int[]{5_000}, friendGraph.suggestFriends(1, 1));
+        assertArrayEquals(new int[]{5_000, 5_001}, friendGraph.suggestFriends(1, 2));
+        assertEquals(3, friendGraph.suggestFriends(1, 3).length);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void givenPowerLawGraph_whenSuggestFriendsForUserWithFiveThousandFriends_thenUnderFiftyMillis() {
+        int users = 50_000;
+        FriendGraph friendGraph = new FriendGraph(null);
+        Random random = new Random(13);
+        for (int friendId = 2; friendId <= 5_001; friendId++) {
+            friendGraph.addFriend(1, friendId);
+        }
+        for (int userId = 2; userId <= users; userId++) {
+            int degree = Math.max(1, (int) (5_000 / Math.pow(userId, 0.7)));
+            for (int i = 0; i < degree; i++) {
+                int friendId = 1 + (int) (users * Math.pow(random.nextDouble(), 3));
+                if (friendId != userId) {
+                    friendGraph.addFriend(userId, friendId);
+                }
+            }
+        }
+        assertEquals(5_000, friendGraph.friendCount(1));
+
+        long[] latencies = new long[30];
+        for (int i = 0; i < latencies.length; i++) {
+            long start = System.nanoTime();
+            int[] suggestions = friendGraph.suggestFriends(1, 10);
+            latencies[i] = System.nanoTime() - start;
+            assertEquals(10, suggestions.length);
+        }
+        Arrays.sort(latencies);
+        long medianMillis = latencies[latencies.length / 2] / 1_000_000;
+        assertTrue(medianMillis < 50, "медиана подбора друзей: " + medianMillis + " мс");
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.filmImpl.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmImpl.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.userImpl.FriendStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "filmorate.group-commit.enabled=true")
+@AutoConfigureTestDatabase
+class GroupCommitExecutorTest {
+    private static final int CLIENTS = 64;
+    private static final int USERS = 2_000;
+    private static final int FILMS = 10;
+
+    @Autowired
+    private GroupCommitExecutor groupCommitExecutor;
+
+    @Autowired
+    private LikeStorage likeStorage;
+
+    @Autowired
+    private FriendStorage friendStorage;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenFailingRequest_whenGroupCommit_thenOnlyThatRequestFails() {
+        insertUsers(3);
+        friendStorage.addFriend(1, 2);
+
+        assertThrows(DataAccessException.class, () -> friendStorage.addFriend(1, 2));
+        friendStorage.addFriend(1, 3);
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FRIENDS", Integer.class));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenSixtyFourClients_whenLikeAndAddFriends_thenFewerCommitsThanRequests() throws Exception {
+        insertUsers(USERS);
+        List<Integer> filmIds = new ArrayList<>();
+        for (int i = 0; i < FILMS; i++) {
+            filmIds.add(filmStorage.create(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(90)
+                    .rate(0)
+                    .mpa(new Mpa(1, "G"))
+                    .build()).getId());
+        }
+        long commitsBefore = groupCommitExecutor.commits();
+        long requestsBefore = groupCommitExecutor.completed();
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int client = 0; client < CLIENTS; client++) {
+            int first = client + 1;
+            futures.add(executor.submit(() -> {
+                for (int userId = first; userId <= USERS; userId += CLIENTS) {
+                    likeStorage.likeFilm(filmIds.get(userId % FILMS), userId);
+                    friendStorage.addFriend(userId, userId % USERS + 1);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        executor.shutdown();
+
+        long commits = groupCommitExecutor.commits() - commitsBefore;
+        long requests = groupCommitExecutor.completed() - requestsBefore;
+        String report = "запросов: " + requests + ", коммитов: " + commits + ", запросов/с: "
+                + requests * 1000 / millis + ", коммитов/с: " + commits * 1000 / millis;
+        assertEquals(2L * USERS, requests, report);
+        assertEquals(USERS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LIKES", Integer.class), report);
+        assertEquals(USERS, jdbcTemplate.queryForObject("SELECT SUM(film_rate) FROM FILMS", Integer.class), report);
+        assertEquals(USERS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FRIENDS", Integer.class), report);
+        assertTrue(commits * 4 < requests, report);
+    }
+
+    @Test
+    void givenShutdownDuringExecute_whenCallersSubmit_thenEveryCallCompletes() throws Exception {
+        GroupCommitExecutor executor = new GroupCommitExecutor(transactionManager, true, 16, 500);
+        executor.start();
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int client = 0; client < 8; client++) {
+            futures.add(clients.submit(() -> {
+                int completed = 0;
+                for (int i = 0; i < 2_000; i++) {
+                    completed += executor.execute(() -> 1);
+                }
+                return completed;
+            }));
+        }
+        executor.shutdown();
+
+        for (Future<Integer> future : futures) {
+            assertEquals(2_000, future.get(30, TimeUnit.SECONDS));
+        }
+        clients.shutdown();
+    }
+
+    private void insertUsers(int count) {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            users.add(new Object[]{"User" + i, "user" + i + "@yandex.ru", "user" + i, LocalDate.of(1990, 1, 1)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO USERS (user_name, user_email, user_login, user_birthday) " +
+                "VALUES (?, ?, ?, ?)", users);
+    }
+}
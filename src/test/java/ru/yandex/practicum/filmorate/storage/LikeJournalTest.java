@@ -0,0 +1,199 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.yandex.practicum.filmorate.exception.LikeJournalOverflowException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.ImportService;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+import ru.yandex.practicum.filmorate.storage.film.LikeGraph;
+import ru.yandex.practicum.filmorate.storage.film.LikeJournal;
+import ru.yandex.practicum.filmorate.storage.filmImpl.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmImpl.LikeStorage;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "filmorate.likes.write-behind.enabled=true",
+        "filmorate.likes.write-behind.flush-interval-ms=60000",
+        "filmorate.likes.write-behind.batch-size=5000"
+})
+@AutoConfigureTestDatabase
+class LikeJournalTest {
+    private static final int USERS = 20_000;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private LikeJournal likeJournal;
+
+    @Autowired
+    private LikeStorage likeStorage;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private FilmCache filmCache;
+
+    @Autowired
+    private LikeGraph likeGraph;
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenWriteBehind_whenLikeAndDislike_thenVisibleBeforeFlushAndCoalesced() {
+        importUsers(3);
+        Film film = createFilm();
+
+        likeStorage.likeFilm(film.getId(), 1);
+        likeStorage.likeFilm(film.getId(), 2);
+        likeStorage.likeFilm(film.getId(), 3);
+        Film liked = likeStorage.dislikeFilm(film.getId(), 2);
+
+        assertEquals(2, liked.getRate());
+        assertEquals(Set.of(1, 3), Set.copyOf(liked.getLikes()));
+        assertEquals(0, countLikes());
+        assertEquals(2, likeJournal.size());
+
+        likeJournal.flush();
+
+        assertEquals(2, countLikes());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT film_rate FROM FILMS WHERE film_id = ?",
+                Integer.class, film.getId()));
+        assertEquals(2, filmStorage.get(film.getId()).getRate());
+        assertEquals(0, likeJournal.size());
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenLikeRejectedByDatabase_whenFlush_thenRevertedInMemory() {
+        importUsers(2);
+        Film film = createFilm();
+        likeStorage.likeFilm(film.getId(), 1);
+        likeStorage.likeFilm(film.getId(), 2);
+        jdbcTemplate.update("DELETE FROM USERS WHERE user_id = ?", 2);
+
+        likeJournal.flush();
+
+        Film flushed = filmStorage.get(film.getId());
+        assertEquals(1, countLikes());
+        assertEquals(1, flushed.getRate());
+        assertEquals(Set.of(1), Set.copyOf(flushed.getLikes()));
+        assertEquals(1, likeGraph.likersCount(film.getId()));
+        assertEquals(0, likeJournal.size());
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenLikeAlreadyStored_whenFlush_thenBatchWrittenAndLikeKeptInMemory() {
+        importUsers(2);
+        Film film = createFilm();
+        jdbcTemplate.update("INSERT INTO LIKES (film_id, user_id) VALUES (?, ?)", film.getId(), 1);
+        jdbcTemplate.update("UPDATE FILMS SET film_rate = 1 WHERE film_id = ?", film.getId());
+        likeStorage.addLike(film.getId(), 1);
+        likeStorage.addLike(film.getId(), 2);
+
+        likeJournal.flush();
+
+        assertEquals(2, countLikes());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT film_rate FROM FILMS WHERE film_id = ?",
+                Integer.class, film.getId()));
+        assertEquals(2, likeGraph.likersCount(film.getId()));
+        assertEquals(0, likeJournal.size());
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenFullJournal_whenLike_thenOverflowAfterTimeout() {
+        LikeJournal journal = new LikeJournal(jdbcTemplate, transactionManager, filmCache,
+                true, 2, 100, 60_000, 10);
+        journal.like(1, 1);
+        journal.like(1, 2);
+
+        assertThrows(LikeJournalOverflowException.class, () -> journal.like(1, 3));
+        assertEquals(2, journal.size());
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenHotFilm_whenConcurrentLikes_thenOneRateUpdatePerFlush() throws Exception {
+        importUsers(USERS);
+        Film film = createFilm();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int first = thread;
+            futures.add(executor.submit(() -> {
+                for (int userId = 1 + first; userId <= USERS; userId += THREADS) {
+                    likeStorage.addLike(film.getId(), userId);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long acknowledgedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        executor.shutdown();
+        likeJournal.flush();
+
+        String report = USERS + " лайков подтверждено за " + acknowledgedMillis + " мс ("
+                + USERS * 1000L / acknowledgedMillis + " лайков/с)";
+        assertEquals(USERS, countLikes(), report);
+        assertEquals(USERS, jdbcTemplate.queryForObject("SELECT film_rate FROM FILMS WHERE film_id = ?",
+                Integer.class, film.getId()), report);
+        assertTrue(USERS * 1000L / acknowledgedMillis > 1_000, report);
+    }
+
+    private void importUsers(int count) {
+        StringBuilder users = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            users.append("{\"email\":\"user").append(i).append("@yandex.ru\",\"login\":\"user").append(i)
+                    .append("\",\"birthday\":\"1990-01-01\"}\n");
+        }
+        importService.importData(ImportService.USERS, ImportService.NDJSON,
+                new ByteArrayInputStream(users.toString().getBytes(StandardCharsets.UTF_8)), false);
+    }
+
+    private Film createFilm() {
+        return filmStorage.create(Film.builder()
+                .name("Premiere")
+                .description("Premiere description.")
+                .releaseDate(LocalDate.of(2022, 1, 1))
+                .duration(120)
+                .rate(0)
+                .mpa(new Mpa(1, "G"))
+                .build());
+    }
+
+    private int countLikes() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LIKES", Integer.class);
+    }
+}
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.ImportService;
+import ru.yandex.practicum.filmorate.storage.film.LikeGraph;
+import ru.yandex.practicum.filmorate.storage.filmImpl.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmImpl.LikeStorage;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+class LikeStorageStressTest {
+    private static final int OPERATIONS = 20_000;
+    private static final int BENCHMARK_OPERATIONS = 1_000_000;
+    private static final int THREADS = 16;
+    private static final int USERS = 50;
+    private static final int FILMS = 4;
+
+    @Autowired
+    private LikeStorage likeStorage;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private LikeGraph likeGraph;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenRepeatedLike_whenAddLike_thenSecondCallChangesNothing() {
+        importUsers(1);
+        Film film = createFilm(0);
+
+        assertTrue(likeStorage.addLike(film.getId(), 1));
+        assertFalse(likeStorage.addLike(film.getId(), 1));
+        assertTrue(likeStorage.removeLike(film.getId(), 1));
+        assertFalse(likeStorage.removeLike(film.getId(), 1));
+
+        assertEquals(0, filmStorage.get(film.getId()).getRate());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LIKES", Integer.class));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenConcurrentRandomLikesAndDislikes_whenFinished_thenRateEqualsLikesCount() throws Exception {
+        runRandomLikesAndDislikes(OPERATIONS);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenMillionConcurrentRandomLikesAndDislikes_whenFinished_thenRateEqualsLikesCount() throws Exception {
+        runRandomLikesAndDislikes(BENCHMARK_OPERATIONS);
+    }
+
+    private void runRandomLikesAndDislikes(int operations) throws Exception {
+        importUsers(USERS);
+        List<Integer> filmIds = new ArrayList<>();
+        for (int i = 0; i < FILMS; i++) {
+            filmIds.add(createFilm(i).getId());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < operations / THREADS; i++) {
+                    int filmId = filmIds.get(random.nextInt(FILMS));
+                    int userId = random.nextInt(USERS) + 1;
+                    if (random.nextBoolean()) {
+                        likeStorage.addLike(filmId, userId);
+                    } else {
+                        likeStorage.removeLike(filmId, userId);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        for (Integer filmId : filmIds) {
+            int likes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LIKES WHERE film_id = ?",
+                    Integer.class, filmId);
+            int rate = jdbcTemplate.queryForObject("SELECT film_rate FROM FILMS WHERE film_id = ?",
+                    Integer.class, filmId);
+            assertEquals(likes, rate, "film_rate фильма с id: " + filmId);
+            assertEquals(likes, likeGraph.likersCount(filmId), "граф лайков фильма с id: " + filmId);
+            assertEquals(likes, filmStorage.get(filmId).getLikes().size(), "лайки фильма с id: " + filmId);
+        }
+    }
+
+    private Film createFilm(int number) {
+        return filmStorage.create(Film.builder()
+                .name("Film " + number)
+                .description("Description " + number)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(90)
+                .rate(0)
+                .mpa(new Mpa(1, "G"))
+                .build());
+    }
+
+    private void importUsers(int count) {
+        StringBuilder users = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            users.append("{\"email\":\"user").append(i).append("@yandex.ru\",\"login\":\"user").append(i)
+                    .append("\",\"birthday\":\"1990-01-01\"}\n");
+        }
+        importService.importData(ImportService.USERS, ImportService.NDJSON,
+                new ByteArrayInputStream(users.toString().getBytes(StandardCharsets.UTF_8)), false);
+    }
+}
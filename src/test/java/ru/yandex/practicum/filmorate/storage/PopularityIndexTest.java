@@ -0,0 +1,246 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.PopularityIndex;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PopularityIndexTest {
+
+    @Test
+    void givenRatedFilms_whenTop_thenOrderedByRateDescThenIdAsc() {
+        PopularityIndex popularityIndex = new PopularityIndex(null);
+        popularityIndex.put(1, 5);
+        popularityIndex.put(2, 7);
+        popularityIndex.put(3, 5);
+        popularityIndex.put(4, -1);
+        popularityIndex.put(5, null);
+
+        assertEquals(List.of(2, 1, 3, 5, 4), popularityIndex.top(10));
+        assertEquals(List.of(2, 1), popularityIndex.top(2));
+    }
+
+    @Test
+    void givenLikesAndDelete_whenTop_thenIndexFollowsChanges() {
+        PopularityIndex popularityIndex = new PopularityIndex(null);
+        popularityIndex.put(1, 0);
+        popularityIndex.put(2, 0);
+        popularityIndex.put(3, 0);
+
+        popularityIndex.adjust(3, 1);
+        popularityIndex.adjust(3, 1);
+        popularityIndex.adjust(2, 1);
+        popularityIndex.remove(1);
+        popularityIndex.adjust(1, 1);
+
+        assertEquals(List.of(3, 2), popularityIndex.top(10));
+        assertEquals(2, popularityIndex.size());
+    }
+
+    @Test
+    void givenConcurrentLikeTraffic_whenFinished_thenFinalOrderConsistent() throws Exception {
+        int films = 1_000;
+        int threads = 4;
+        int likesPerThread = 5_000;
+        PopularityIndex popularityIndex = new PopularityIndex(null);
+        for (int filmId = 1; filmId <= films; filmId++) {
+            popularityIndex.put(filmId, 0);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            writers.add(executor.submit(() -> {
+                for (int like = 0; like < likesPerThread; like++) {
+                    popularityIndex.adjust(ThreadLocalRandom.current().nextInt(1, 11), 1);
+                    popularityIndex.top(10);
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+
+        List<Integer> top = popularityIndex.top(10);
+        assertEquals(10, top.size());
+        assertTrue(top.stream().allMatch(filmId -> filmId <= 10));
+        assertEquals(films, popularityIndex.size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void givenMillionFilmsAndConcurrentLikes_whenTop_thenP99Reported() throws Exception {
+        int films = 1_000_000;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        int likesPerThread = 1_000_000 / threads;
+        PopularityIndex popularityIndex = new PopularityIndex(null);
+        for (int filmId = 1; filmId <= films; filmId++) {
+            popularityIndex.put(filmId, 0);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        List<Future<?>> writers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            writers.add(executor.submit(() -> {
+                for (int like = 0; like < likesPerThread; like++) {
+                    popularityIndex.adjust(ThreadLocalRandom.current().nextInt(1, films + 1), 1);
+                }
+            }));
+        }
+        Future<long[]> reader = executor.submit(() -> {
+            long[] latencies = new long[20_000];
+            for (int i = 0; i < latencies.length; i++) {
+                long readStart = System.nanoTime();
+                popularityIndex.top(10);
+                latencies[i] = System.nanoTime() - readStart;
+            }
+            return latencies;
+        });
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        long likesMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        long[] latencies = reader.get();
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        long p50Micros = latencies[latencies.length / 2] / 1_000;
+        long p99Micros = latencies[(int) (latencies.length * 0.99)] / 1_000;
+        long maxMicros = latencies[latencies.length - 1] / 1_000;
+        String report = "фильмов: " + films + ", лайков/с: " + (long) threads * likesPerThread * 1000 / likesMillis
+                + ", чтение топа p50: " + p50Micros + " мкс, p99: " + p99Micros + " мкс, max: " + maxMicros + " мкс";
+        System.out.println("PopularityIndex: " + report);
+        assertTrue(p99Micros < 50_000, report);
+        assertEquals(films, popularityIndex.size());
+    }
+
+    @Test
+    void givenFilmsWithFacets_whenTopWithFilters_thenOnlyMatchingFilmsInRateOrder() {
+        PopularityIndex popularityIndex = new PopularityIndex(null);
+        popularityIndex.put(film(1, 5, 2003, 1, 2));
+        popularityIndex.put(film(2, 7, 2003, 2, 1));
+        popularityIndex.put(film(3, 9, 2004, 1, 1));
+        popularityIndex.put(film(4, 1, 2003, 1, 1, 2));
+
+        assertEquals(List.of(2, 4), popularityIndex.top(10, 1, null, 2003));
+        assertEquals(List.of(1, 4), popularityIndex.top(10, 2, null, null));
+        assertEquals(List.of(3, 1, 4), popularityIndex.top(10, null, 1, null));
+
+        popularityIndex.adjust(4, 10);
+        assertEquals(List.of(4, 2), popularityIndex.top(10, 1, null, 2003));
+
+        popularityIndex.put(film(4, 11, 2004, 1, 2));
+        assertEquals(List.of(2), popularityIndex.top(10, 1, null, 2003));
+        assertEquals(List.of(4), popularityIndex.top(10, 2, 1, 2004));
+
+        popularityIndex.remove(2);
+        assertTrue(popularityIndex.top(10, 1, null, 2003).isEmpty());
+        assertTrue(popularityIndex.top(10, 99, null, null).isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void givenMillionFilmsAndConcurrentLikes_whenTopWithFilters_thenTenThousandReadsPerCpuSecond() throws Exception {
+        int films = 1_000_000;
+        int genres = 20;
+        int mpas = 5;
+        int firstYear = 1950;
+        int years = 73;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        int likesPerThread = 1_000_000 / threads;
+        Random random = new Random(18);
+        int[] genreIds = new int[films + 1];
+        int[] filmYears = new int[films + 1];
+        PopularityIndex popularityIndex = new PopularityIndex(null);
+        for (int filmId = 1; filmId <= films; filmId++) {
+            genreIds[filmId] = 1 + random.nextInt(genres);
+            filmYears[filmId] = firstYear + random.nextInt(years);
+            popularityIndex.put(film(filmId, 0, filmYears[filmId], 1 + random.nextInt(mpas), genreIds[filmId]));
+        }
+
+        AtomicIntegerArray rates = new AtomicIntegerArray(films + 1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            writers.add(executor.submit(() -> {
+                for (int like = 0; like < likesPerThread; like++) {
+                    int filmId = ThreadLocalRandom.current().nextInt(1, films + 1);
+                    rates.incrementAndGet(filmId);
+                    popularityIndex.adjust(filmId, 1);
+                }
+            }));
+        }
+        int reads = 20_000;
+        Future<Long> reader = executor.submit(() -> {
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            long start = threadMXBean.getCurrentThreadCpuTime();
+            for (int i = 0; i < reads; i++) {
+                int genreId = 1 + ThreadLocalRandom.current().nextInt(genres);
+                int year = firstYear + ThreadLocalRandom.current().nextInt(years);
+                popularityIndex.top(10, genreId, null, year);
+            }
+            return threadMXBean.getCurrentThreadCpuTime() - start;
+        });
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        long readerCpuNanos = reader.get();
+        executor.shutdown();
+
+        long readsPerCpuSecond = reads * 1_000_000_000L / readerCpuNanos;
+        assertTrue(readsPerCpuSecond > 10_000, "чтений топа с фильтрами на секунду CPU: " + readsPerCpuSecond);
+
+        int genreId = 3;
+        int year = 2003;
+        List<Integer> expected = new ArrayList<>();
+        for (int filmId = 1; filmId <= films; filmId++) {
+            if (genreIds[filmId] == genreId && filmYears[filmId] == year) {
+                expected.add(filmId);
+            }
+        }
+        expected.sort((first, second) -> rates.get(first) != rates.get(second)
+                ? Integer.compare(rates.get(second), rates.get(first))
+                : Integer.compare(first, second));
+        assertEquals(expected.subList(0, 10), popularityIndex.top(10, genreId, null, year));
+    }
+
+    private static Film film(int filmId, int rate, int year, int mpaId, int... genreIds) {
+        Film film = Film.builder()
+                .id(filmId)
+                .name("Saw" + filmId)
+                .description("Saw description.")
+                .releaseDate(LocalDate.of(year, 1, 1))
+                .duration(100)
+                .rate(rate)
+                .mpa(Mpa.builder()
+                        .id(mpaId)
+                        .build())
+                .build();
+        for (int genreId : genreIds) {
+            film.getGenres().add(Genre.builder()
+                    .id(genreId)
+                    .build());
+        }
+        return film;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class QueryCounter implements BeanPostProcessor {
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicInteger commits = new AtomicInteger();
+    private final List<String> preparedSql = new CopyOnWriteArrayList<>();
+
+    public void reset() {
+        statements.set(0);
+        commits.set(0);
+        preparedSql.clear();
+    }
+
+    public int getCount() {
+        return statements.get();
+    }
+
+    public int getCommits() {
+        return commits.get();
+    }
+
+    public long countStatementsStartingWith(String sqlPrefix) {
+        return preparedSql.stream()
+                .filter(sql -> sql.trim().toUpperCase().startsWith(sqlPrefix.toUpperCase()))
+                .count();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource)) {
+            return bean;
+        }
+        return Proxy.newProxyInstance(bean.getClass().getClassLoader(),
+                ClassUtils.getAllInterfaces(bean),
+                (proxy, method, args) -> {
+                    Object result = invoke(bean, method, args);
+                    if (result instanceof Connection) {
+                        return countingConnection((Connection) result);
+                    }
+                    return result;
+                });
+    }
+
+    private Connection countingConnection(Connection connection) throws SQLException {
+        boolean[] autoCommit = {connection.getAutoCommit()};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("setAutoCommit")) {
+                        autoCommit[0] = (Boolean) args[0];
+                    } else if (name.equals("commit")) {
+                        commits.incrementAndGet();
+                    }
+                    if (name.equals("prepareStatement") || name.equals("createStatement")
+                            || name.equals("prepareCall")) {
+                        statements.incrementAndGet();
+                        if (autoCommit[0]) {
+                            commits.incrementAndGet();
+                        }
+                        if (args != null && args.length > 0 && args[0] instanceof String) {
+                            preparedSql.add((String) args[0]);
+                        }
+                    }
+                    return invoke(connection, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
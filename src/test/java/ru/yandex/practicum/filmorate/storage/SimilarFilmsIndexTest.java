@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.film.LikeGraph;
+import ru.yandex.practicum.filmorate.storage.film.SimilarFilmsIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimilarFilmsIndexTest {
+    private static final int CLUSTERS = 200;
+    private static final int FILMS_PER_CLUSTER = 10;
+    private static final int USERS_PER_CLUSTER = 50;
+    private static final int LIKES_PER_FILM = 40;
+    private static final int NOISE_LIKES_PER_FILM = 5;
+
+    @Test
+    void givenLikeRemoved_whenEstimateJaccard_thenSignatureEqualsRecomputed() {
+        LikeGraph likeGraph = new LikeGraph(null);
+        SimilarFilmsIndex index = new SimilarFilmsIndex(null, likeGraph, Long.MAX_VALUE);
+        for (int userId = 1; userId <= 4; userId++) {
+            like(likeGraph, index, 1, userId);
+        }
+        for (int userId = 1; userId <= 3; userId++) {
+            like(likeGraph, index, 2, userId);
+        }
+        likeGraph.removeLike(1, 4);
+        index.removeLike(1, 4);
+
+        assertEquals(1.0, index.estimateJaccard(1, 2));
+        assertEquals(List.of(2), index.similar(1, 10));
+    }
+
+    @Test
+    void givenFilmDeleted_whenSimilar_thenFilmNotReturned() {
+        LikeGraph likeGraph = new LikeGraph(null);
+        SimilarFilmsIndex index = new SimilarFilmsIndex(null, likeGraph, Long.MAX_VALUE);
+        for (int userId = 1; userId <= 3; userId++) {
+            like(likeGraph, index, 1, userId);
+            like(likeGraph, index, 2, userId);
+        }
+        likeGraph.deleteFilm(2);
+        index.deleteFilm(2);
+
+        assertTrue(index.similar(1, 10).isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void givenClusteredLikes_whenSimilar_thenRecallAgainstExactJaccardAndLatency() {
+        Random random = new Random(16);
+        LikeGraph likeGraph = new LikeGraph(null);
+        SimilarFilmsIndex index = new SimilarFilmsIndex(null, likeGraph, Long.MAX_VALUE);
+        int films = CLUSTERS * FILMS_PER_CLUSTER;
+        int users = CLUSTERS * USERS_PER_CLUSTER;
+        List<Set<Integer>> likers = new ArrayList<>();
+        likers.add(new HashSet<>());
+        for (int filmId = 1; filmId <= films; filmId++) {
+            int firstClusterUser = 1 + (filmId - 1) / FILMS_PER_CLUSTER * USERS_PER_CLUSTER;
+            Set<Integer> filmLikers = new HashSet<>();
+            while (filmLikers.size() < LIKES_PER_FILM) {
+                filmLikers.add(firstClusterUser + random.nextInt(USERS_PER_CLUSTER));
+            }
+            for (int i = 0; i < NOISE_LIKES_PER_FILM; i++) {
+                filmLikers.add(1 + random.nextInt(users));
+            }
+            for (int userId : filmLikers) {
+                like(likeGraph, index, filmId, userId);
+            }
+            likers.add(filmLikers);
+        }
+
+        int queries = 200;
+        int limit = FILMS_PER_CLUSTER - 1;
+        for (int i = 0; i < 10_000; i++) {
+            index.similar(1 + random.nextInt(films), limit);
+        }
+        int found = 0;
+        long[] latencies = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            int filmId = 1 + random.nextInt(films);
+            long start = System.nanoTime();
+            List<Integer> similar = index.similar(filmId, limit);
+            latencies[i] = System.nanoTime() - start;
+            Set<Integer> exact = exactTop(likers, filmId, limit);
+            for (Integer similarId : similar) {
+                if (exact.contains(similarId)) {
+                    found++;
+                }
+            }
+        }
+        Arrays.sort(latencies);
+        double recall = (double) found / (queries * limit);
+        long medianMicros = latencies[queries / 2] / 1_000;
+        long p99Micros = latencies[(int) (queries * 0.99)] / 1_000;
+        assertTrue(recall >= 0.9, "recall@" + limit + " относительно точного Jaccard: " + recall);
+        assertTrue(medianMicros < 1_000, "медиана поиска похожих фильмов: " + medianMicros + " мкс, p99: "
+                + p99Micros + " мкс");
+    }
+
+    private static void like(LikeGraph likeGraph, SimilarFilmsIndex index, int filmId, int userId) {
+        likeGraph.addLike(filmId, userId);
+        index.addLike(filmId, userId);
+    }
+
+    private static Set<Integer> exactTop(List<Set<Integer>> likers, int filmId, int limit) {
+        Set<Integer> filmLikers = likers.get(filmId);
+        Integer[] candidates = new Integer[likers.size() - 2];
+        double[] similarity = new double[likers.size()];
+        int count = 0;
+        for (int otherId = 1; otherId < likers.size(); otherId++) {
+            if (otherId == filmId) {
+                continue;
+            }
+            int intersection = 0;
+            for (Integer userId : likers.get(otherId)) {
+                if (filmLikers.contains(userId)) {
+                    intersection++;
+                }
+            }
+            similarity[otherId] = (double) intersection
+                    / (filmLikers.size() + likers.get(otherId).size() - intersection);
+            candidates[count++] = otherId;
+        }
+        Arrays.sort(candidates, (first, second) -> Double.compare(similarity[second], similarity[first]));
+        return new HashSet<>(Arrays.asList(candidates).subList(0, limit));
+    }
+}
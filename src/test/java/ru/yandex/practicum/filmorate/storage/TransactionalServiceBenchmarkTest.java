@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.filmImpl.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/benchmark/filmorate-${random.uuid}",
+        "filmorate.similar.flush-interval-ms=600000"
+})
+@Import(QueryCounter.class)
+@Tag("benchmark")
+class TransactionalServiceBenchmarkTest {
+    private static final int WARMUP = 200;
+    private static final int REQUESTS = 1_000;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenFileDatabase_whenCreateAndDeleteThroughService_thenOneCommitPerRequest() {
+        run("прогрев без транзакции", WARMUP, filmStorage::create, filmStorage::delete);
+        run("прогрев с транзакцией", WARMUP, filmService::createFilm, filmService::delete);
+
+        Result autoCommit = run("без транзакции", REQUESTS, filmStorage::create, filmStorage::delete);
+        Result transactional = run("с транзакцией", REQUESTS, filmService::createFilm, filmService::delete);
+        String report = autoCommit + "; " + transactional;
+
+        assertEquals(2 * REQUESTS, transactional.commits, report);
+        assertTrue(autoCommit.commits >= 2 * transactional.commits, report);
+    }
+
+    private Result run(String name, int count, Function<Film, Film> create, IntFunction<Film> delete) {
+        List<Integer> filmIds = new ArrayList<>(count);
+        long[] createNanos = new long[count];
+        long[] deleteNanos = new long[count];
+        queryCounter.reset();
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            long requestStart = System.nanoTime();
+            filmIds.add(create.apply(film(i)).getId());
+            createNanos[i] = System.nanoTime() - requestStart;
+        }
+        for (int i = 0; i < count; i++) {
+            long requestStart = System.nanoTime();
+            delete.apply(filmIds.get(i));
+            deleteNanos[i] = System.nanoTime() - requestStart;
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        return new Result(name, queryCounter.getCommits(), median(createNanos), median(deleteNanos),
+                2L * count * 1000 / millis);
+    }
+
+    private static Film film(int number) {
+        Film film = Film.builder()
+                .name("Film " + number)
+                .description("Description " + number)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(90)
+                .rate(0)
+                .mpa(new Mpa(1, "G"))
+                .build();
+        for (int genreId = 1; genreId <= 3; genreId++) {
+            film.getGenres().add(new Genre(genreId, null));
+        }
+        return film;
+    }
+
+    private static long median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1_000;
+    }
+
+    private static final class Result {
+        private final String name;
+        private final int commits;
+        private final long createMicros;
+        private final long deleteMicros;
+        private final long requestsPerSecond;
+
+        private Result(String name, int commits, long createMicros, long deleteMicros, long requestsPerSecond) {
+            this.name = name;
+            this.commits = commits;
+            this.createMicros = createMicros;
+            this.deleteMicros = deleteMicros;
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": коммитов " + commits + ", медиана создания " + createMicros + " мкс, медиана удаления "
+                    + deleteMicros + " мкс, запросов/с " + requestsPerSecond;
+        }
+    }
+}
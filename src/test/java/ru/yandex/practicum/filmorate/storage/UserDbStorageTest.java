@@ -0,0 +1,226 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FriendService;
+import ru.yandex.practicum.filmorate.service.ImportService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.LikeGraph;
+import ru.yandex.practicum.filmorate.storage.filmImpl.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.userImpl.UserStorage;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@Import(QueryCounter.class)
+class UserDbStorageTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private FriendService friendService;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private FriendGraph friendGraph;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private LikeGraph likeGraph;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenTenThousandUsers_whenFindAll_thenQueryCountStaysConstant() {
+        insertUsers(0, 10);
+        queryCounter.reset();
+        List<User> fewUsers = userService.findAllUsers();
+        int fewUsersQueries = queryCounter.getCount();
+
+        insertUsers(10, 10_000);
+        queryCounter.reset();
+        List<User> manyUsers = userService.findAllUsers();
+        int manyUsersQueries = queryCounter.getCount();
+
+        assertEquals(10, fewUsers.size());
+        assertEquals(10_000, manyUsers.size());
+        assertEquals(fewUsersQueries, manyUsersQueries);
+        for (User user : manyUsers) {
+            assertEquals(Set.of(user.getId() % 10_000 + 1), user.getFriends());
+        }
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenUserWithManyFriends_whenGetAllFriends_thenFriendsLoadedInBulk() {
+        insertUsers(0, 10_000);
+        List<Object[]> friendships = new ArrayList<>();
+        for (int friendId = 3; friendId <= 800; friendId++) {
+            friendships.add(new Object[]{1, friendId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO FRIENDS (user_id, friend_id) VALUES (?, ?)", friendships);
+        friendGraph.rebuild();
+
+        queryCounter.reset();
+        List<User> friends = friendService.findAll(1);
+        int queries = queryCounter.getCount();
+
+        assertEquals(799, friends.size());
+        assertTrue(queries < 10);
+        for (User friend : friends) {
+            assertEquals(Set.of(friend.getId() + 1), friend.getFriends());
+        }
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenGrowingOverlap_whenGetCommonFriends_thenQueryCountStaysConstant() {
+        insertUsers(0, 2_000);
+        addCommonFriends(4, 14);
+        friendService.getCommonFriends(1, 2);
+        queryCounter.reset();
+        List<User> fewCommonFriends = friendService.getCommonFriends(1, 2);
+        int fewCommonFriendsQueries = queryCounter.getCount();
+
+        addCommonFriends(14, 994);
+        queryCounter.reset();
+        List<User> manyCommonFriends = friendService.getCommonFriends(1, 2);
+        int manyCommonFriendsQueries = queryCounter.getCount();
+
+        assertEquals(10, fewCommonFriends.size());
+        assertEquals(990, manyCommonFriends.size());
+        assertEquals(1, fewCommonFriendsQueries);
+        assertEquals(fewCommonFriendsQueries, manyCommonFriendsQueries);
+        for (User commonFriend : manyCommonFriends) {
+            assertEquals(Set.of(commonFriend.getId() + 1), commonFriend.getFriends());
+        }
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenUsersInsertedAndDeleted_whenValidateDataExists_thenAnsweredFromIndexAfterFirstHit() {
+        insertUsers(0, 10);
+        User created = userStorage.create(User.builder()
+                .name("Oleg")
+                .email("terentjev.dr@yandex.ru")
+                .login("OlegT")
+                .birthday(LocalDate.of(1993, 12, 3))
+                .build());
+
+        queryCounter.reset();
+        assertTrue(userStorage.validateDataExists(created.getId()));
+        assertEquals(0, queryCounter.getCount());
+        assertTrue(userStorage.validateDataExists(5));
+        assertTrue(userStorage.validateDataExists(5));
+        assertEquals(1, queryCounter.getCount());
+
+        userStorage.delete(created.getId());
+        assertFalse(userStorage.validateDataExists(created.getId()));
+        assertFalse(userStorage.validateDataExists(100));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenUserDeleted_whenValidateDataExists_thenFalse() {
+        insertUsers(0, 10);
+        assertTrue(userStorage.validateDataExists(5));
+
+        userStorage.delete(5);
+
+        assertFalse(userStorage.validateDataExists(5));
+        assertTrue(userStorage.validateDataExists(6));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void givenUserWithHundredThousandLikes_whenDelete_thenLikesRatesAndFriendsRemovedInFewQueries() {
+        insertUsers(0, 3);
+        StringBuilder films = new StringBuilder();
+        StringBuilder likes = new StringBuilder();
+        for (int i = 1; i <= 100_000; i++) {
+            films.append("{\"name\":\"Film ").append(i).append("\",\"description\":\"Description\",")
+                    .append("\"releaseDate\":\"2000-01-01\",\"duration\":90,\"rate\":0,\"mpa\":{\"id\":1}}\n");
+            likes.append("{\"filmId\":").append(i).append(",\"userId\":1}\n");
+            if (i <= 10) {
+                likes.append("{\"filmId\":").append(i).append(",\"userId\":2}\n");
+            }
+        }
+        importService.importData(ImportService.FILMS, ImportService.NDJSON,
+                new ByteArrayInputStream(films.toString().getBytes(StandardCharsets.UTF_8)), false);
+        importService.importData(ImportService.LIKES, ImportService.NDJSON,
+                new ByteArrayInputStream(likes.toString().getBytes(StandardCharsets.UTF_8)), true);
+
+        queryCounter.reset();
+        userService.delete(1);
+        int deleteQueries = queryCounter.getCount();
+
+        assertTrue(deleteQueries < 20, "запросов при удалении: " + deleteQueries);
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LIKES", Integer.class));
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT SUM(film_rate) FROM FILMS", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FRIENDS WHERE user_id = 1 " +
+                "OR friend_id = 1", Integer.class));
+        assertEquals(0, likeGraph.likedFilmsCount(1));
+        assertEquals(1, likeGraph.likersCount(1));
+        assertEquals(1, filmStorage.get(1).getRate());
+        assertEquals(0, filmStorage.get(11).getRate());
+        assertFalse(userStorage.validateDataExists(1));
+    }
+
+    private void addCommonFriends(int fromId, int toId) {
+        List<Object[]> friendships = new ArrayList<>();
+        for (int friendId = fromId; friendId < toId; friendId++) {
+            friendships.add(new Object[]{1, friendId});
+            friendships.add(new Object[]{2, friendId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO FRIENDS (user_id, friend_id) VALUES (?, ?)", friendships);
+        friendGraph.rebuild();
+    }
+
+    private void insertUsers(int from, int to) {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            users.add(new Object[]{"User" + i, "user" + i + "@yandex.ru", "login" + i, LocalDate.of(1993, 12, 3)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO USERS (user_name, user_email, user_login, user_birthday) " +
+                "VALUES (?, ?, ?, ?)", users);
+        if (from > 0) {
+            jdbcTemplate.update("DELETE FROM FRIENDS WHERE user_id = ?", from);
+        }
+        List<Object[]> friendships = new ArrayList<>();
+        for (int userId = Math.max(from, 1); userId <= to; userId++) {
+            friendships.add(new Object[]{userId, userId % to + 1});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO FRIENDS (user_id, friend_id) VALUES (?, ?)", friendships);
+        friendGraph.rebuild();
+    }
+}
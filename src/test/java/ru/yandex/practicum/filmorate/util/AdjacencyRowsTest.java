@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdjacencyRowsTest {
+
+    @Test
+    void givenRandomChangesOverBuiltRows_whenRead_thenSameAsSortedSet() {
+        AdjacencyRows.Builder builder = new AdjacencyRows.Builder();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int value = 0; value < 1_000; value += 3) {
+            builder.add(7, value);
+            expected.add(value);
+        }
+        AdjacencyRows rows = builder.build();
+        Random random = new Random(5);
+        for (int i = 0; i < 5_000; i++) {
+            int value = random.nextInt(1_200);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), rows.add(7, value));
+            } else {
+                assertEquals(expected.remove(value), rows.remove(7, value));
+            }
+            assertEquals(expected.size(), rows.size(7));
+            assertEquals(expected.contains(value), rows.contains(7, value));
+            if (i % 97 == 0) {
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), rows.get(7));
+            }
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), rows.get(7));
+        assertEquals(expected.size(), rows.edges());
+        assertEquals(expected.size(), rows.removeRow(7).length);
+        assertEquals(0, rows.edges());
+        assertFalse(rows.contains(7, expected.first()));
+    }
+
+    @Test
+    void givenConcurrentWritersOnSameRow_whenFinished_thenNoChangeLost() throws Exception {
+        AdjacencyRows rows = new AdjacencyRows();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int offset = thread;
+            futures.add(executor.submit(() -> {
+                for (int value = offset; value < 80_000; value += 8) {
+                    assertTrue(rows.add(1, value));
+                    assertTrue(rows.add(100_000 + value, 1));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(80_000, rows.size(1));
+        assertEquals(160_000, rows.edges());
+        int[] values = rows.get(1);
+        for (int value = 0; value < values.length; value++) {
+            assertEquals(value, values[value]);
+        }
+        assertTrue(rows.contains(179_999, 1));
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedAdjacencyTest {
+
+    @Test
+    void givenInsertsAndRemoves_whenDecode_thenSortedIdsReturned() {
+        byte[] row = CompressedAdjacency.EMPTY;
+        for (int id : new int[]{300, 5, 1_000_000, 42, 5}) {
+            row = CompressedAdjacency.insert(row, id);
+        }
+        row = CompressedAdjacency.remove(row, 42);
+
+        assertArrayEquals(new int[]{5, 300, 1_000_000}, CompressedAdjacency.decode(row));
+        assertEquals(3, CompressedAdjacency.size(row));
+        assertTrue(CompressedAdjacency.contains(row, 300));
+        assertFalse(CompressedAdjacency.contains(row, 42));
+    }
+
+    @Test
+    void givenTwoRows_whenIntersect_thenCommonIdsInOrder() {
+        int[] first = {1, 3, 5, 7, 9, 200};
+        int[] second = {2, 3, 4, 9, 200, 300};
+        List<Integer> common = new ArrayList<>();
+
+        CompressedAdjacency.intersect(CompressedAdjacency.encode(first, first.length),
+                CompressedAdjacency.encode(second, second.length), common::add);
+
+        assertEquals(List.of(3, 9, 200), common);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void givenTenMillionEdges_whenEncoded_thenFitWellUnderHundredMegabytes() {
+        int users = 1_000_000;
+        int friendsPerUser = 10;
+        Random random = new Random(7);
+        int[] friendIds = new int[friendsPerUser];
+        long bytes = 0;
+        for (int userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < friendsPerUser; i++) {
+                friendIds[i] = 1 + random.nextInt(users);
+            }
+            Arrays.sort(friendIds);
+            bytes += 16 + CompressedAdjacency.encode(friendIds, friendsPerUser).length + Integer.BYTES;
+        }
+
+        assertTrue(bytes < 100L * 1024 * 1024, "размер графа: " + bytes + " байт");
+    }
+}
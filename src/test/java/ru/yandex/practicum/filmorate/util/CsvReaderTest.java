@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+    @Test
+    void givenQuotedFields_whenNext_thenUnescaped() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,\"b, c\",\"d \"\"e\"\"\"\r\n\n1,,\"x\ny\"\n"));
+
+        assertEquals(List.of("a", "b, c", "d \"e\""), reader.next());
+        assertEquals(List.of("1", "", "x\ny"), reader.next());
+        assertEquals(4, reader.line());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void givenUnclosedQuote_whenNext_thenIOException() {
+        CsvReader reader = new CsvReader(new StringReader("a,\"b\n"));
+
+        assertThrows(IOException.class, reader::next);
+    }
+}
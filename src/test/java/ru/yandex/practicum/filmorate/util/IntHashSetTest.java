@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntHashSetTest {
+
+    @Test
+    void givenRandomOperations_whenComparedWithHashSet_thenSameContents() {
+        IntHashSet intHashSet = new IntHashSet();
+        Set<Integer> hashSet = new HashSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int value = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(hashSet.remove(value), intHashSet.remove(value));
+            } else {
+                assertEquals(hashSet.add(value), intHashSet.add(value));
+            }
+        }
+
+        assertEquals(hashSet, intHashSet);
+        assertEquals(intHashSet, hashSet);
+        assertEquals(hashSet.hashCode(), intHashSet.hashCode());
+    }
+
+    @Test
+    void givenUnorderedIds_whenSerialized_thenWrittenAsSortedArray() throws Exception {
+        IntHashSet intHashSet = new IntHashSet();
+        intHashSet.add(42);
+        intHashSet.add(0);
+        intHashSet.add(7);
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new SimpleModule().addSerializer(new IntHashSetSerializer()));
+
+        assertEquals("[0,7,42]", objectMapper.writeValueAsString(intHashSet));
+    }
+
+    @Test
+    void givenTenThousandAndMillionIds_whenFilled_thenFootprintFarBelowBoxedHashSet() {
+        for (int entries : new int[]{10_000, 1_000_000}) {
+            IntHashSet intHashSet = new IntHashSet();
+            for (int id = 1; id <= entries; id++) {
+                intHashSet.add(id);
+            }
+            long primitiveBytes = (long) intHashSet.capacity() * Integer.BYTES;
+            long boxedBytesLowerBound = entries * 48L;
+
+            assertEquals(entries, intHashSet.size());
+            assertTrue(primitiveBytes * 4 < boxedBytesLowerBound,
+                    entries + " записей: " + primitiveBytes + " байт против " + boxedBytesLowerBound);
+        }
+    }
+}